@@ -0,0 +1,181 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.DatabaseFactory;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+import com.arcadedb.database.Record;
+import com.arcadedb.graph.Edge;
+import com.arcadedb.graph.Vertex;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.StorageSettings;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares regular edge records with light edges and presized edge segments for a workspace whose edges carry no
+ * properties. The edge import and the traversal over all outgoing edges are measured, and the traversals report the
+ * size of the database files taken by the edges as a secondary result. A high number of edges per node turns every
+ * vertex into a hub.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=8g"})
+public class EdgeStorageBenchmark {
+    public enum EdgeStorage {
+        REGULAR,
+        LIGHT,
+        LIGHT_PRESIZED
+    }
+
+    @State(Scope.Benchmark)
+    public static class Workspace extends ImportStates.Workspace {
+        @Param({"20000"})
+        public int nodeCount;
+        @Param({"10"})
+        public int labelCount;
+        @Param({"4", "256"})
+        public int edgesPerNode;
+        @Param({"REGULAR", "LIGHT", "LIGHT_PRESIZED"})
+        public EdgeStorage edgeStorage;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            create(nodeCount, labelCount, edgesPerNode, SyntheticWorkspace.PropertyShape.SCALAR);
+            settings.lightEdges = edgeStorage != EdgeStorage.REGULAR;
+            settings.presizeEdgeSegments = edgeStorage == EdgeStorage.LIGHT_PRESIZED;
+        }
+    }
+
+    /**
+     * Fresh database in which all nodes of the workspace were imported.
+     */
+    @State(Scope.Thread)
+    public static class DatabaseWithNodes extends ImportStates.Database {
+        @Setup(Level.Invocation)
+        public void setUp(final Workspace workspace) throws IOException {
+            create(workspace);
+            importer.createNodes(workspace.graph.getNodeLabels());
+        }
+    }
+
+    /**
+     * Size of the database files taken by the edges, reported as the {@code edgeBytes} secondary result of the
+     * traversal benchmarks.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Storage {
+        public long edgeBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(final DatabaseWithGraph database) {
+            edgeBytes = database.edgeBytes;
+        }
+    }
+
+    /**
+     * Database with the whole graph, reopened after the import so all pages were flushed, and the RIDs of all
+     * vertices to traverse from.
+     */
+    @State(Scope.Benchmark)
+    public static class DatabaseWithGraph {
+        Path path;
+        DatabaseInternal db;
+        long edgeBytes;
+        List<RID> vertexIds;
+
+        @Setup(Level.Trial)
+        public void setUp(final Workspace workspace) throws IOException {
+            path = SyntheticWorkspace.createTempDatabasePath();
+            db = (DatabaseInternal) new DatabaseFactory(path.toString()).create();
+            ArcadeDBService.createSchema(db, workspace.graph, new StorageSettings());
+            final NodeIdRIDMap nodeIdArcadeDBIdMap = new NodeIdRIDMap(db, workspace.graph.getNumberOfNodes());
+            createImporter(workspace, nodeIdArcadeDBIdMap).createNodes(workspace.graph.getNodeLabels());
+            final Path mappingFilePath = path.resolveSibling("node-id-mapping.bin");
+            nodeIdArcadeDBIdMap.save(mappingFilePath);
+            final long nodesSize = reopen();
+            createImporter(workspace, NodeIdRIDMap.load(db, mappingFilePath)).createEdges(
+                    workspace.graph.getEdgeLabels());
+            edgeBytes = reopen() - nodesSize;
+            vertexIds = new ArrayList<>();
+            for (final String label : workspace.graph.getNodeLabels()) {
+                final Iterator<Record> iterator = db.iterateType(label, false);
+                while (iterator.hasNext())
+                    vertexIds.add(iterator.next().getIdentity());
+            }
+        }
+
+        private GraphImporter createImporter(final Workspace workspace, final NodeIdRIDMap nodeIdArcadeDBIdMap) {
+            return new GraphImporter(db, workspace.graph, workspace.settings, nodeIdArcadeDBIdMap,
+                                     new LabelFingerprints(), new ImportReport(db, "benchmark"), null);
+        }
+
+        /**
+         * Closes the database, so all pages are flushed, and returns the size of its files before opening it again.
+         */
+        private long reopen() throws IOException {
+            db.close();
+            final long size = getDirectorySize(path);
+            db = (DatabaseInternal) new DatabaseFactory(path.toString()).open();
+            return size;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            db.close();
+            SyntheticWorkspace.deleteRecursively(path.getParent());
+        }
+    }
+
+    static long getDirectorySize(final Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            long result = 0;
+            for (final Path file : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator)
+                result += Files.size(file);
+            return result;
+        }
+    }
+
+    @Benchmark
+    public void createEdges(final Workspace workspace, final DatabaseWithNodes database,
+                            final ImportStates.Records records) {
+        database.importer.createEdges(workspace.graph.getEdgeLabels());
+        records.records += workspace.graph.getNumberOfEdges();
+    }
+
+    /**
+     * Visits the adjacent vertices, which are read from the edge segments for both kinds of edges.
+     */
+    @Benchmark
+    public void traverseVertices(final DatabaseWithGraph database, final ImportStates.Records records,
+                                 final Storage storage, final Blackhole blackhole) {
+        for (final RID id : database.vertexIds)
+            for (final Vertex vertex : id.asVertex().getVertices(Vertex.DIRECTION.OUT)) {
+                blackhole.consume(vertex);
+                records.records++;
+            }
+    }
+
+    /**
+     * Visits the edges themselves, which loads the edge record of every regular edge.
+     */
+    @Benchmark
+    public void traverseEdges(final DatabaseWithGraph database, final ImportStates.Records records,
+                              final Storage storage, final Blackhole blackhole) {
+        for (final RID id : database.vertexIds)
+            for (final Edge edge : id.asVertex().getEdges(Vertex.DIRECTION.OUT)) {
+                blackhole.consume(edge.getIn());
+                records.records++;
+            }
+    }
+}
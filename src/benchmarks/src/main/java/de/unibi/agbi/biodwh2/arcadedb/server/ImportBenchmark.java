@@ -0,0 +1,111 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the import steps of {@link ArcadeDBService#createDatabase(ImportSettings)} on their own and together
+ * against a fresh embedded database per invocation. The database is prepared up to the benchmarked step outside of
+ * the measurement. Besides the invocation throughput, the number of imported records per second is reported as the
+ * {@code records} secondary result.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=8g"})
+public class ImportBenchmark {
+    @State(Scope.Benchmark)
+    public static class Workspace extends ImportStates.Workspace {
+        @Param({"100000"})
+        public int nodeCount;
+        @Param({"10"})
+        public int labelCount;
+        @Param({"2"})
+        public int edgesPerNode;
+        @Param({"SCALAR", "ARRAY", "MIXED"})
+        public SyntheticWorkspace.PropertyShape propertyShape;
+        @Param({"1", "4"})
+        public int threads;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            create(nodeCount, labelCount, edgesPerNode, propertyShape);
+            settings.threads = threads;
+            settings.indexThreads = threads;
+        }
+    }
+
+    /**
+     * Fresh database in which the schema of the workspace was created.
+     */
+    @State(Scope.Thread)
+    public static class EmptyDatabase extends ImportStates.Database {
+        @Setup(Level.Invocation)
+        public void setUp(final Workspace workspace) throws IOException {
+            create(workspace);
+            prepare(workspace);
+        }
+
+        void prepare(final Workspace workspace) {
+        }
+    }
+
+    /**
+     * Database in which all nodes of the workspace were imported.
+     */
+    @State(Scope.Thread)
+    public static class DatabaseWithNodes extends EmptyDatabase {
+        @Override
+        void prepare(final Workspace workspace) {
+            importer.createNodes(workspace.graph.getNodeLabels());
+        }
+    }
+
+    /**
+     * Database in which all nodes and edges of the workspace were imported.
+     */
+    @State(Scope.Thread)
+    public static class DatabaseWithGraph extends EmptyDatabase {
+        @Override
+        void prepare(final Workspace workspace) {
+            importer.createNodes(workspace.graph.getNodeLabels());
+            importer.createEdges(workspace.graph.getEdgeLabels());
+        }
+    }
+
+    @Benchmark
+    public void createNodes(final Workspace workspace, final EmptyDatabase database,
+                            final ImportStates.Records records) {
+        database.importer.createNodes(workspace.graph.getNodeLabels());
+        records.records += workspace.graph.getNumberOfNodes();
+    }
+
+    @Benchmark
+    public void createEdges(final Workspace workspace, final DatabaseWithNodes database,
+                            final ImportStates.Records records) {
+        database.importer.createEdges(workspace.graph.getEdgeLabels());
+        records.records += workspace.graph.getNumberOfEdges();
+    }
+
+    @Benchmark
+    public void createIndices(final Workspace workspace, final DatabaseWithGraph database,
+                              final ImportStates.Records records) {
+        new IndexBuilder(database.db, workspace.settings, database.report).createIndices(
+                workspace.graph.indexDescriptions());
+        records.records += workspace.graph.getNumberOfNodes();
+    }
+
+    @Benchmark
+    public void createDatabase(final Workspace workspace, final EmptyDatabase database,
+                               final ImportStates.Records records) {
+        database.importer.createNodes(workspace.graph.getNodeLabels());
+        database.importer.createEdges(workspace.graph.getEdgeLabels());
+        new IndexBuilder(database.db, workspace.settings, database.report).createIndices(
+                workspace.graph.indexDescriptions());
+        records.records += workspace.graph.getNumberOfNodes() + workspace.graph.getNumberOfEdges();
+    }
+}
@@ -0,0 +1,80 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.DatabaseFactory;
+import com.arcadedb.database.DatabaseInternal;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.StorageSettings;
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * States shared by the import benchmarks. Each benchmark declares its own workspace state with the parameters it
+ * varies and database states preparing the database up to the benchmarked step.
+ */
+public final class ImportStates {
+    private ImportStates() {
+    }
+
+    /**
+     * Synthetic workspace generated once per trial together with the import settings of the benchmark.
+     */
+    public abstract static class Workspace {
+        SyntheticWorkspace workspace;
+        Graph graph;
+        ImportSettings settings;
+
+        void create(final int nodeCount, final int labelCount, final int edgesPerNode,
+                    final SyntheticWorkspace.PropertyShape propertyShape) throws IOException {
+            workspace = SyntheticWorkspace.create(nodeCount, labelCount, edgesPerNode, propertyShape);
+            graph = workspace.openGraph();
+            settings = new ImportSettings();
+            settings.bulkImport = true;
+            settings.disableWAL = true;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            graph.close();
+            workspace.close();
+        }
+    }
+
+    /**
+     * Fresh database per invocation in which the schema of the workspace was created.
+     */
+    public abstract static class Database {
+        Path path;
+        DatabaseInternal db;
+        ImportReport report;
+        GraphImporter importer;
+
+        void create(final Workspace workspace) throws IOException {
+            path = SyntheticWorkspace.createTempDatabasePath();
+            db = (DatabaseInternal) new DatabaseFactory(path.toString()).create();
+            ArcadeDBService.createSchema(db, workspace.graph, new StorageSettings());
+            report = new ImportReport(db, "benchmark");
+            importer = new GraphImporter(db, workspace.graph, workspace.settings,
+                                         new NodeIdRIDMap(db, workspace.graph.getNumberOfNodes()),
+                                         new LabelFingerprints(), report, null);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            db.close();
+            SyntheticWorkspace.deleteRecursively(path.getParent());
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Records {
+        public long records;
+    }
+}
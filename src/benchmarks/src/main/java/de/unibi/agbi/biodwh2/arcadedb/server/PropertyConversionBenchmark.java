@@ -0,0 +1,71 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the conversion of node property values into the values written to ArcadeDB, once through the
+ * precompiled {@link PropertyWritePlan} of the label and once by probing the element type of every collection. One
+ * operation is the conversion of all properties of a single node.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyConversionBenchmark {
+    private static final int NODE_COUNT = 10000;
+
+    @Param({"ARRAY", "MIXED"})
+    public SyntheticWorkspace.PropertyShape propertyShape;
+
+    private PropertyWritePlan plan;
+    private Node[] nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (SyntheticWorkspace workspace = SyntheticWorkspace.create(NODE_COUNT, 1, 0, propertyShape);
+             Graph graph = workspace.openGraph()) {
+            final String label = SyntheticWorkspace.getNodeLabel(0);
+            plan = PropertyWritePlan.create(graph.getPropertyKeyTypesForNodeLabel(label), Node.IGNORED_FIELDS);
+            final List<Node> result = new ArrayList<>(NODE_COUNT);
+            for (final Node node : graph.getNodes(label))
+                result.add(node);
+            nodes = result.toArray(new Node[0]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODE_COUNT)
+    public void writePlan(final Blackhole blackhole) {
+        for (final Node node : nodes)
+            for (int i = 0; i < plan.size(); i++) {
+                final Object value = node.getProperty(plan.getKey(i));
+                if (value != null)
+                    blackhole.consume(plan.convert(i, value));
+            }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODE_COUNT)
+    public void probeElementTypes(final Blackhole blackhole) {
+        for (final Node node : nodes)
+            for (final String key : node.keySet())
+                if (!Node.IGNORED_FIELDS.contains(key)) {
+                    final Object value = node.getProperty(key);
+                    if (value instanceof Collection)
+                        blackhole.consume(PropertyWritePlan.convertCollectionToArray((Collection<?>) value));
+                    else if (value != null)
+                        blackhole.consume(value);
+                }
+    }
+}
@@ -0,0 +1,133 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import de.unibi.agbi.biodwh2.core.model.graph.IndexDescription;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates a BioDWH2 workspace with a synthetic mapped graph in a temporary directory. The content only depends on
+ * the given sizes and property shape, so repeated runs benchmark the same data without any network access.
+ */
+final class SyntheticWorkspace implements AutoCloseable {
+    enum PropertyShape {
+        /**
+         * String, double and integer properties only.
+         */
+        SCALAR,
+        /**
+         * A string id plus string and integer list properties.
+         */
+        ARRAY,
+        /**
+         * Scalar and list properties, including lists with mixed element types and properties on edges.
+         */
+        MIXED
+    }
+
+    private static final long SEED = 42;
+    private static final int LIST_SIZE = 4;
+
+    private final Path path;
+
+    private SyntheticWorkspace(final Path path) {
+        this.path = path;
+    }
+
+    static SyntheticWorkspace create(final int nodeCount, final int labelCount, final int edgesPerNode,
+                                     final PropertyShape shape) throws IOException {
+        final Path path = Files.createTempDirectory("biodwh2-arcadedb-benchmark");
+        Files.createDirectories(path.resolve("sources"));
+        final Random random = new Random(SEED);
+        try (Graph graph = new Graph(path.resolve("sources/mapped.db"))) {
+            final long[] nodeIds = new long[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                final Node node = Node.newNode(getNodeLabel(i % labelCount));
+                node.setProperty("id", "node-" + i);
+                setNodeProperties(node, shape, random, i);
+                graph.insertNode(node);
+                nodeIds[i] = node.getId();
+            }
+            for (int i = 0; i < nodeCount; i++)
+                for (int j = 0; j < edgesPerNode; j++) {
+                    final long toId = nodeIds[random.nextInt(nodeCount)];
+                    final String label = getEdgeLabel((i + j) % labelCount);
+                    if (shape == PropertyShape.MIXED)
+                        graph.addEdge(nodeIds[i], toId, label, "score", random.nextDouble());
+                    else
+                        graph.addEdge(nodeIds[i], toId, label);
+                }
+            for (int i = 0; i < Math.min(labelCount, nodeCount); i++) {
+                graph.addIndex(IndexDescription.forNode(getNodeLabel(i), "id", false, IndexDescription.Type.UNIQUE));
+                if (shape != PropertyShape.SCALAR)
+                    graph.addIndex(IndexDescription.forNode(getNodeLabel(i), "synonyms", true,
+                                                            IndexDescription.Type.NON_UNIQUE));
+            }
+        }
+        return new SyntheticWorkspace(path);
+    }
+
+    static String getNodeLabel(final int index) {
+        return "Label" + index;
+    }
+
+    static String getEdgeLabel(final int index) {
+        return "RELATION_" + index;
+    }
+
+    private static void setNodeProperties(final Node node, final PropertyShape shape, final Random random,
+                                          final int index) {
+        if (shape != PropertyShape.ARRAY) {
+            node.setProperty("name", "Synthetic node " + index);
+            node.setProperty("score", random.nextDouble());
+            node.setProperty("rank", random.nextInt(1000));
+        }
+        if (shape != PropertyShape.SCALAR) {
+            final List<String> synonyms = new ArrayList<>(LIST_SIZE);
+            final List<Integer> references = new ArrayList<>(LIST_SIZE);
+            for (int i = 0; i < LIST_SIZE; i++) {
+                synonyms.add("synonym-" + random.nextInt(100000));
+                references.add(random.nextInt(100000));
+            }
+            node.setProperty("synonyms", synonyms);
+            node.setProperty("references", references);
+        }
+        if (shape == PropertyShape.MIXED) {
+            final List<Object> annotations = new ArrayList<>(LIST_SIZE);
+            for (int i = 0; i < LIST_SIZE; i++)
+                annotations.add(i % 2 == 0 ? "annotation-" + random.nextInt(100) : random.nextInt(100));
+            node.setProperty("annotations", annotations);
+        }
+    }
+
+    Graph openGraph() throws IOException {
+        return new Graph(path.resolve("sources/mapped.db"), true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        deleteRecursively(path);
+    }
+
+    static void deleteRecursively(final Path path) throws IOException {
+        if (!Files.exists(path))
+            return;
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (final Path file : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(file);
+        }
+    }
+
+    static Path createTempDatabasePath() throws IOException {
+        return Paths.get(Files.createTempDirectory("biodwh2-arcadedb-benchmark-db").toString(), "BioDWH2");
+    }
+}
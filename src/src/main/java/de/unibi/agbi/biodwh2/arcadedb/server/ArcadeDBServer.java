@@ -1,14 +1,21 @@
 package de.unibi.agbi.biodwh2.arcadedb.server;
 
 import de.unibi.agbi.biodwh2.core.net.BioDWH2Updater;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.BenchmarkSettings;
 import de.unibi.agbi.biodwh2.arcadedb.server.model.CmdArgs;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ServerSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.StorageSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.WarmUpSettings;
 import org.apache.commons.lang3.StringUtils;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -16,6 +23,8 @@ import java.nio.file.Paths;
 public class ArcadeDBServer {
     private static final Logger LOGGER = LoggerFactory.getLogger(ArcadeDBServer.class);
 
+    private boolean trustFileMetadata;
+
     private ArcadeDBServer() {
     }
 
@@ -34,30 +43,90 @@ public class ArcadeDBServer {
     private void run(final CmdArgs commandLine) {
         BioDWH2Updater.checkForUpdate("BioDWH2-ArcadeDB-Server",
                                       "https://api.github.com/repos/BioDWH2/BioDWH2-ArcadeDB-Server/releases");
-        if (commandLine.createStart != null)
-            createAndStartWorkspaceServer(commandLine);
+        if (commandLine.createStart == null && commandLine.start == null && commandLine.create == null &&
+            commandLine.serveReadOnly == null && commandLine.exportSnapshot == null &&
+            commandLine.importSnapshot == null && commandLine.benchmark == null) {
+            printHelp(commandLine);
+            return;
+        }
+        trustFileMetadata = commandLine.trustFileMetadata;
+        final StorageSettings storageSettings = loadStorageSettings(commandLine);
+        if (storageSettings == null)
+            printHelp(commandLine);
+        else if (commandLine.createStart != null)
+            createAndStartWorkspaceServer(commandLine, storageSettings);
         else if (commandLine.start != null)
-            startWorkspaceServer(commandLine);
-        else if (commandLine.create != null)
-            createWorkspaceDatabase(commandLine);
+            startWorkspaceServer(commandLine, storageSettings);
+        else if (commandLine.serveReadOnly != null)
+            serveReadOnlyWorkspaceServer(commandLine, storageSettings);
+        else if (commandLine.exportSnapshot != null)
+            exportSnapshot(commandLine, storageSettings);
+        else if (commandLine.importSnapshot != null)
+            importSnapshot(commandLine, storageSettings);
+        else if (commandLine.benchmark != null)
+            runBenchmark(commandLine, storageSettings);
         else
-            printHelp(commandLine);
+            createWorkspaceDatabase(commandLine, storageSettings);
     }
 
-    private void createAndStartWorkspaceServer(final CmdArgs commandLine) {
+    private StorageSettings loadStorageSettings(final CmdArgs commandLine) {
+        try {
+            return StorageSettings.fromCmdArgs(commandLine);
+        } catch (IOException | IllegalArgumentException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to load storage settings: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void createAndStartWorkspaceServer(final CmdArgs commandLine, final StorageSettings storageSettings) {
         final String workspacePath = commandLine.createStart;
         if (!verifyWorkspaceExists(workspacePath)) {
             printHelp(commandLine);
             return;
         }
-        final ArcadeDBService service = new ArcadeDBService(workspacePath);
-        service.deleteOldDatabase();
-        service.startArcadeDBService(commandLine.port);
-        service.createDatabase();
-        storeWorkspaceHash(workspacePath);
+        final ArcadeDBService service = new ArcadeDBService(workspacePath, storageSettings,
+                                                            ServerSettings.fromCmdArgs(commandLine));
+        importWorkspaceDatabase(service, workspacePath, commandLine, storageSettings);
+        registerShutdownHook(service);
         service.openBrowser();
     }
 
+    private void registerShutdownHook(final ArcadeDBService service) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            service.storePageCacheStatistics();
+            service.stopArcadeDBService();
+        }, "arcadedb-shutdown"));
+    }
+
+    private void importWorkspaceDatabase(final ArcadeDBService service, final String workspacePath,
+                                         final CmdArgs commandLine, final StorageSettings storageSettings) {
+        final ImportSettings settings = ImportSettings.fromCmdArgs(commandLine, storageSettings);
+        final String workspaceHash = getWorkspaceHashSafe(workspacePath);
+        if (commandLine.resume && service.canResumeImport(workspaceHash)) {
+            service.startArcadeDBService(commandLine.port);
+            service.resumeDatabase(settings);
+        } else if (commandLine.incremental && service.canUpdateDatabase()) {
+            service.startArcadeDBService(commandLine.port);
+            if (checkArcadeDBDatabaseMatchesWorkspace(workspacePath, workspaceHash)) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("The ArcadeDB database is up-to-date with the workspace");
+                storeWorkspaceMetadataHashSafe(workspacePath);
+                return;
+            }
+            service.updateDatabase(settings);
+        } else {
+            if (commandLine.resume && LOGGER.isInfoEnabled())
+                LOGGER.info("No checkpoint of an interrupted import found, creating the database from scratch");
+            else if (commandLine.incremental && LOGGER.isInfoEnabled())
+                LOGGER.info("No previous incremental import state found, creating the database from scratch");
+            service.deleteOldDatabase();
+            service.startArcadeDBService(commandLine.port);
+            service.createDatabase(settings, workspaceHash);
+        }
+        storeWorkspaceHash(workspacePath, workspaceHash);
+    }
+
     private boolean verifyWorkspaceExists(final String workspacePath) {
         if (StringUtils.isEmpty(workspacePath) || !Paths.get(workspacePath).toFile().exists()) {
             if (LOGGER.isErrorEnabled())
@@ -73,39 +142,226 @@ public class ArcadeDBServer {
         CommandLine.usage(commandLine, System.out);
     }
 
-    private void storeWorkspaceHash(final String workspacePath) {
+    /**
+     * Stores the hash computed before the import, so the mapped graph is not read again. It is only computed here if
+     * computing it before the import failed.
+     */
+    private void storeWorkspaceHash(final String workspacePath, final String workspaceHash) {
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Updating workspace ArcadeDB cache checksum...");
         final Path hashFilePath = Paths.get(workspacePath, "arcadedb/checksum.txt");
         try {
-            final String hash = HashUtils.getFastPseudoHashFromFile(
-                    Paths.get(workspacePath, "sources/mapped.db").toString());
+            final String hash = workspaceHash != null ? workspaceHash : getWorkspaceHash(workspacePath);
             final FileWriter writer = new FileWriter(hashFilePath.toFile());
             writer.write(hash);
             writer.close();
+            storeWorkspaceMetadataHash(workspacePath);
         } catch (IOException e) {
             if (LOGGER.isErrorEnabled())
                 LOGGER.error("Failed to store hash of workspace mapped graph", e);
         }
     }
 
-    private void startWorkspaceServer(final CmdArgs commandLine) {
+    /**
+     * Stores the pseudo hash of the size and modification time of the mapped graph next to its content hash, so
+     * starting the server can check the database is up-to-date without reading the mapped graph.
+     */
+    private void storeWorkspaceMetadataHash(final String workspacePath) throws IOException {
+        final Path hashFilePath = Paths.get(workspacePath, "arcadedb/checksum-metadata.txt");
+        final FileWriter writer = new FileWriter(hashFilePath.toFile());
+        writer.write(HashUtils.getFastPseudoHashFromFile(Paths.get(workspacePath, "sources/mapped.db").toString()));
+        writer.close();
+    }
+
+    private void storeWorkspaceMetadataHashSafe(final String workspacePath) {
+        try {
+            storeWorkspaceMetadataHash(workspacePath);
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to store pseudo hash of workspace mapped graph", e);
+        }
+    }
+
+    private String getWorkspaceHashSafe(final String workspacePath) {
+        try {
+            return getWorkspaceHash(workspacePath);
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to compute hash of workspace mapped graph", e);
+            return null;
+        }
+    }
+
+    private String getWorkspaceHash(final String workspacePath) throws IOException {
+        return HashUtils.getContentHashFromFile(Paths.get(workspacePath, "sources/mapped.db").toString(),
+                                                trustFileMetadata ? Paths.get(workspacePath,
+                                                                              "arcadedb/checksum-chunks.txt") : null);
+    }
+
+    private void startWorkspaceServer(final CmdArgs commandLine, final StorageSettings storageSettings) {
         final String workspacePath = commandLine.start;
         if (!verifyWorkspaceExists(workspacePath)) {
             printHelp(commandLine);
             return;
         }
-        if (!checkArcadeDBDatabaseMatchesWorkspace(workspacePath) && LOGGER.isInfoEnabled())
+        final ArcadeDBService service = new ArcadeDBService(workspacePath, storageSettings,
+                                                            ServerSettings.fromCmdArgs(commandLine));
+        restoreSnapshotIfOutOfDate(service, workspacePath, commandLine);
+        if (!checkArcadeDBDatabaseMetadataMatchesWorkspace(workspacePath) && LOGGER.isInfoEnabled())
             LOGGER.warn("The ArcadeDB database is out-of-date and should be recreated with the --create command");
-        final ArcadeDBService service = new ArcadeDBService(workspacePath);
         service.startArcadeDBService(commandLine.port);
+        registerShutdownHook(service);
+        final WarmUpSettings warmUpSettings = WarmUpSettings.fromCmdArgs(commandLine);
+        if (warmUpSettings.enabled)
+            service.startPageCacheWarmUp(warmUpSettings);
         service.openBrowser();
     }
 
-    private boolean checkArcadeDBDatabaseMatchesWorkspace(final String workspacePath) {
+    private void serveReadOnlyWorkspaceServer(final CmdArgs commandLine, final StorageSettings storageSettings) {
+        final String workspacePath = commandLine.serveReadOnly;
+        if (!verifyWorkspaceExists(workspacePath)) {
+            printHelp(commandLine);
+            return;
+        }
+        final ArcadeDBService service = new ArcadeDBService(workspacePath, storageSettings,
+                                                            ServerSettings.fromCmdArgs(commandLine));
+        restoreSnapshotIfOutOfDate(service, workspacePath, commandLine);
+        if (!service.existsDatabase()) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("The ArcadeDB database does not exist and has to be created with the --create command");
+            return;
+        }
+        if (!checkArcadeDBDatabaseMetadataMatchesWorkspace(workspacePath) && LOGGER.isWarnEnabled())
+            LOGGER.warn("The ArcadeDB database is out-of-date and should be recreated with the --create command");
+        service.startArcadeDBService(commandLine.port);
+        registerShutdownHook(service);
+        final WarmUpSettings warmUpSettings = WarmUpSettings.fromCmdArgs(commandLine);
+        if (warmUpSettings.enabled)
+            service.startPageCacheWarmUp(warmUpSettings);
+    }
+
+    /**
+     * Restores the snapshot if the database is missing or does not match the workspace. The mapped graph is only read
+     * if its size or modification time changed since the database was created.
+     */
+    private void restoreSnapshotIfOutOfDate(final ArcadeDBService service, final String workspacePath,
+                                            final CmdArgs commandLine) {
+        if (commandLine.snapshot == null || !Files.exists(Paths.get(commandLine.snapshot)))
+            return;
+        if (service.existsDatabase() && checkArcadeDBDatabaseMetadataMatchesWorkspace(workspacePath))
+            return;
+        final String workspaceHash = getWorkspaceHashSafe(workspacePath);
+        if ((service.existsDatabase() && checkArcadeDBDatabaseMatchesWorkspace(workspacePath, workspaceHash)) ||
+            service.restoreSnapshot(Paths.get(commandLine.snapshot), workspaceHash,
+                                    Math.max(1, commandLine.snapshotThreads)))
+            storeWorkspaceMetadataHashSafe(workspacePath);
+    }
+
+    private Path getSnapshotFilePath(final String workspacePath, final CmdArgs commandLine) {
+        return commandLine.snapshot != null ? Paths.get(commandLine.snapshot) : Paths.get(workspacePath,
+                                                                                           "arcadedb-snapshot.zip");
+    }
+
+    private void exportSnapshot(final CmdArgs commandLine, final StorageSettings storageSettings) {
+        final String workspacePath = commandLine.exportSnapshot;
+        if (!verifyWorkspaceExists(workspacePath)) {
+            printHelp(commandLine);
+            return;
+        }
+        final ArcadeDBService service = new ArcadeDBService(workspacePath, storageSettings,
+                                                            ServerSettings.fromCmdArgs(commandLine));
+        final String workspaceHash = service.existsDatabase() ? getWorkspaceHashSafe(workspacePath) : null;
+        if (!checkArcadeDBDatabaseMatchesWorkspace(workspacePath, workspaceHash)) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("The ArcadeDB database is missing or out-of-date and has to be created with the " +
+                             "--create command before exporting a snapshot");
+            return;
+        }
+        service.exportSnapshot(getSnapshotFilePath(workspacePath, commandLine), workspaceHash,
+                                   Math.max(0, Math.min(9, commandLine.snapshotCompression)));
+    }
+
+    private void importSnapshot(final CmdArgs commandLine, final StorageSettings storageSettings) {
+        final String workspacePath = commandLine.importSnapshot;
+        if (!verifyWorkspaceExists(workspacePath)) {
+            printHelp(commandLine);
+            return;
+        }
+        final Path snapshotFilePath = getSnapshotFilePath(workspacePath, commandLine);
+        if (!Files.exists(snapshotFilePath)) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Snapshot '" + snapshotFilePath + "' was not found");
+            return;
+        }
+        final ArcadeDBService service = new ArcadeDBService(workspacePath, storageSettings,
+                                                            ServerSettings.fromCmdArgs(commandLine));
+        if (service.restoreSnapshot(snapshotFilePath, getWorkspaceHashSafe(workspacePath),
+                                    Math.max(1, commandLine.snapshotThreads)))
+            storeWorkspaceMetadataHashSafe(workspacePath);
+    }
+
+    private void runBenchmark(final CmdArgs commandLine, final StorageSettings storageSettings) {
+        final String workspacePath = commandLine.benchmark;
+        if (!verifyWorkspaceExists(workspacePath)) {
+            printHelp(commandLine);
+            return;
+        }
+        final BenchmarkSettings settings = BenchmarkSettings.fromCmdArgs(commandLine);
+        if (settings.workloadFilePath == null || !Files.exists(settings.workloadFilePath)) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Workload file '" + settings.workloadFilePath + "' was not found");
+            printHelp(commandLine);
+            return;
+        }
+        final ArcadeDBService service = new ArcadeDBService(workspacePath, storageSettings,
+                                                            ServerSettings.fromCmdArgs(commandLine));
+        restoreSnapshotIfOutOfDate(service, workspacePath, commandLine);
+        if (!service.existsDatabase()) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("The ArcadeDB database does not exist and has to be created with the --create command");
+            return;
+        }
+        service.startArcadeDBService(commandLine.port);
+        try {
+            final JSONObject report = service.runBenchmark(settings);
+            System.out.print(QueryBenchmark.formatReport(report));
+            Files.write(settings.outputFilePath, report.toString(2).getBytes(StandardCharsets.UTF_8));
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Stored benchmark report in '" + settings.outputFilePath + "'");
+        } catch (IOException | RuntimeException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to run query benchmark", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            service.stopArcadeDBService();
+        }
+    }
+
+    /**
+     * Checks the size and modification time of the mapped graph against the ones stored with the database, which does
+     * not read the mapped graph. A copied or touched mapped graph is reported as out-of-date.
+     */
+    private boolean checkArcadeDBDatabaseMetadataMatchesWorkspace(final String workspacePath) {
         try {
             final String hash = HashUtils.getFastPseudoHashFromFile(
                     Paths.get(workspacePath, "sources/mapped.db").toString());
+            final Path hashFilePath = Paths.get(workspacePath, "arcadedb/checksum-metadata.txt");
+            if (Files.exists(hashFilePath)) {
+                final String storedHash = new String(Files.readAllBytes(hashFilePath)).trim();
+                return hash.equals(storedHash);
+            }
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to check pseudo hash of workspace mapped graph", e);
+        }
+        return false;
+    }
+
+    private boolean checkArcadeDBDatabaseMatchesWorkspace(final String workspacePath, final String hash) {
+        if (hash == null)
+            return false;
+        try {
             final Path hashFilePath = Paths.get(workspacePath, "arcadedb/checksum.txt");
             if (Files.exists(hashFilePath)) {
                 final String storedHash = new String(Files.readAllBytes(hashFilePath)).trim();
@@ -118,17 +374,15 @@ public class ArcadeDBServer {
         return false;
     }
 
-    private void createWorkspaceDatabase(final CmdArgs commandLine) {
+    private void createWorkspaceDatabase(final CmdArgs commandLine, final StorageSettings storageSettings) {
         final String workspacePath = commandLine.create;
         if (!verifyWorkspaceExists(workspacePath)) {
             printHelp(commandLine);
             return;
         }
-        final ArcadeDBService service = new ArcadeDBService(workspacePath);
-        service.deleteOldDatabase();
-        service.startArcadeDBService(commandLine.port);
-        service.createDatabase();
-        storeWorkspaceHash(workspacePath);
+        final ArcadeDBService service = new ArcadeDBService(workspacePath, storageSettings,
+                                                            ServerSettings.fromCmdArgs(commandLine));
+        importWorkspaceDatabase(service, workspacePath, commandLine, storageSettings);
         service.stopArcadeDBService();
     }
 }
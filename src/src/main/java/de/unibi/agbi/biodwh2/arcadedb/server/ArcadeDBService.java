@@ -3,17 +3,15 @@ package de.unibi.agbi.biodwh2.arcadedb.server;
 import com.arcadedb.ContextConfiguration;
 import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.database.DatabaseInternal;
-import com.arcadedb.database.RID;
-import com.arcadedb.graph.MutableEdge;
-import com.arcadedb.graph.MutableVertex;
-import com.arcadedb.graph.Vertex;
-import com.arcadedb.index.IndexException;
-import com.arcadedb.index.lsm.LSMTreeIndexAbstract;
 import com.arcadedb.schema.*;
 import com.arcadedb.server.ArcadeDBServer;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.BenchmarkSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ServerSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.StorageSettings;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.WarmUpSettings;
 import de.unibi.agbi.biodwh2.core.model.graph.Edge;
 import de.unibi.agbi.biodwh2.core.model.graph.Graph;
-import de.unibi.agbi.biodwh2.core.model.graph.IndexDescription;
 import de.unibi.agbi.biodwh2.core.model.graph.Node;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -27,25 +25,39 @@ import java.io.IOException;
 import java.lang.reflect.Array;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * <a href="https://docs.arcadedb.com/#Embed-Server">ArcadeDB Embedded Server</a>
  */
 public class ArcadeDBService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ArcadeDBService.class);
+    static final String DATABASE_NAME = "BioDWH2";
+    private static final String NODE_ID_MAPPING_FILE_NAME = "node-id-mapping.bin";
+    private static final String FINGERPRINTS_FILE_NAME = "label-fingerprints.json";
+    private static final String LIGHT_EDGE_LABELS_FILE_NAME = "light-edge-labels.json";
 
     private final String workspacePath;
     private final Path databasePath;
+    private final StorageSettings storageSettings;
+    private final ServerSettings serverSettings;
     private ArcadeDBServer server;
+    private PageCacheWarmer pageCacheWarmer;
 
-    public ArcadeDBService(final String workspacePath) {
+    public ArcadeDBService(final String workspacePath, final StorageSettings storageSettings,
+                           final ServerSettings serverSettings) {
         this.workspacePath = workspacePath;
+        this.storageSettings = storageSettings;
+        this.serverSettings = serverSettings;
         databasePath = Paths.get(workspacePath, "arcadedb");
         InjectionLogger.inject();
     }
@@ -54,6 +66,16 @@ public class ArcadeDBService {
         port = validatePort(port);
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Starting ArcadeDB DBMS on localhost:" + port + "...");
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Effective storage configuration: " + storageSettings);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Effective server configuration: " + serverSettings);
+        QueryResultCache.setCurrent(serverSettings.queryCacheMegabytes > 0 ? new QueryResultCache(
+                serverSettings.queryCacheMegabytes * 1048576L) : null);
+        QueryConcurrencyLimiter.setCurrent(serverSettings.readOnly ? new QueryConcurrencyLimiter(
+                serverSettings.maxQueries, serverSettings.maxHeavyQueries) : null);
+        if (serverSettings.readOnly)
+            QueryExecutors.useVirtualThreadsIfAvailable();
         server = new ArcadeDBServer(getServerConfig(port));
         server.start();
         createBioDWH2UserIfNotExists();
@@ -80,13 +102,35 @@ public class ArcadeDBService {
 
     private ContextConfiguration getServerConfig(final String port) {
         final ContextConfiguration config = new ContextConfiguration();
-        config.setValue(GlobalConfiguration.HA_SERVER_LIST, "localhost");
-        config.setValue(GlobalConfiguration.HA_REPLICATION_INCOMING_HOST, "0.0.0.0");
+        if (!serverSettings.readOnly) {
+            config.setValue(GlobalConfiguration.HA_SERVER_LIST, "localhost");
+            config.setValue(GlobalConfiguration.HA_REPLICATION_INCOMING_HOST, "0.0.0.0");
+        }
         config.setValue(GlobalConfiguration.HA_ENABLED, false);
         config.setValue(GlobalConfiguration.SERVER_NAME, "BioDWH2-ArcadeDB-Server");
         config.setValue(GlobalConfiguration.SERVER_HTTP_INCOMING_PORT, port);
         config.setValue(GlobalConfiguration.SERVER_ROOT_PASSWORD, "biodwh2-arcadedb");
         config.setValue(GlobalConfiguration.SERVER_ROOT_PATH, databasePath);
+        if (storageSettings.pageSize > 0)
+            config.setValue(GlobalConfiguration.BUCKET_DEFAULT_PAGE_SIZE, storageSettings.pageSize);
+        if (storageSettings.readCacheMegabytes > 0) {
+            // The page cache is shared by all databases of the process and configured globally
+            GlobalConfiguration.MAX_PAGE_RAM.setValue(storageSettings.readCacheMegabytes);
+            config.setValue(GlobalConfiguration.MAX_PAGE_RAM, storageSettings.readCacheMegabytes);
+        }
+        config.setValue(GlobalConfiguration.TX_WAL_FLUSH, storageSettings.walFlush);
+        if (storageSettings.asyncWorkers > 0)
+            config.setValue(GlobalConfiguration.ASYNC_WORKER_THREADS, storageSettings.asyncWorkers);
+        if (serverSettings.readOnly) {
+            // Databases are opened read-only, so neither the WAL nor write locks are involved in serving queries
+            config.setValue(GlobalConfiguration.SERVER_DEFAULT_DATABASE_MODE, "READ_ONLY");
+            config.setValue(GlobalConfiguration.TX_WAL, false);
+            config.setValue(GlobalConfiguration.SERVER_HTTP_IO_THREADS, serverSettings.httpIoThreads);
+        }
+        config.setValue(GlobalConfiguration.SERVER_PLUGINS,
+                        ImportReportPlugin.NAME + ":" + ImportReportPlugin.class.getName() + "," +
+                        QueryCachePlugin.NAME + ":" + QueryCachePlugin.class.getName() + "," +
+                        ArrayIndexLookupPlugin.NAME + ":" + ArrayIndexLookupPlugin.class.getName());
         return config;
     }
 
@@ -105,8 +149,84 @@ public class ArcadeDBService {
     }
 
     public void stopArcadeDBService() {
+        if (pageCacheWarmer != null)
+            pageCacheWarmer.stop();
         if (server != null)
             server.stop();
+        QueryExecutors.shutdown();
+    }
+
+    public boolean existsDatabase() {
+        return Files.exists(databasePath.resolve(DATABASE_NAME));
+    }
+
+    /**
+     * Packs the database directory into a snapshot tagged with the workspace hash. The server must not be running.
+     */
+    public boolean exportSnapshot(final Path snapshotFilePath, final String workspaceHash,
+                                  final int compressionLevel) {
+        if (ImportCheckpoint.exists(databasePath) || ImportCheckpoint.isUpdateInterrupted(databasePath)) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("The import of the ArcadeDB database was interrupted and cannot be exported");
+            return false;
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Exporting ArcadeDB database snapshot to '" + snapshotFilePath + "'...");
+        try {
+            DatabaseSnapshot.export(databasePath, snapshotFilePath, workspaceHash, compressionLevel);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Exported snapshot with " + (Files.size(snapshotFilePath) / 1048576) + " MB");
+            return true;
+        } catch (IOException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to export ArcadeDB database snapshot '" + snapshotFilePath + "'", e);
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the database directory with the snapshot if it was taken from the same workspace. The server must not
+     * be running.
+     */
+    public boolean restoreSnapshot(final Path snapshotFilePath, final String workspaceHash, final int threads) {
+        try {
+            final String snapshotHash = DatabaseSnapshot.readWorkspaceHash(snapshotFilePath);
+            if (workspaceHash == null || !workspaceHash.equals(snapshotHash)) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("The snapshot '" + snapshotFilePath + "' does not match the workspace");
+                return false;
+            }
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Restoring ArcadeDB database from snapshot '" + snapshotFilePath + "'...");
+            final long startTime = System.currentTimeMillis();
+            DatabaseSnapshot.restore(snapshotFilePath, databasePath, threads);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Restored snapshot in " + (System.currentTimeMillis() - startTime) + " ms");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to restore ArcadeDB database snapshot '" + snapshotFilePath + "'", e);
+            return false;
+        }
+    }
+
+    /**
+     * Preloads pages of the database into the read cache in the background. The HTTP server already accepts
+     * connections while the warm-up is running.
+     */
+    public void startPageCacheWarmUp(final WarmUpSettings settings) {
+        if (server == null || !server.existsDatabase(DATABASE_NAME))
+            return;
+        pageCacheWarmer = new PageCacheWarmer(server.getDatabase(DATABASE_NAME), settings, databasePath);
+        pageCacheWarmer.start();
+    }
+
+    /**
+     * Stores which buckets and indices are cached, so the next warm-up can load the most used ones first.
+     */
+    public void storePageCacheStatistics() {
+        if (server != null && server.isStarted() && server.existsDatabase(DATABASE_NAME))
+            PageCacheWarmer.storeStatistics(server.getDatabase(DATABASE_NAME), databasePath);
     }
 
     public void deleteOldDatabase() {
@@ -121,165 +241,431 @@ public class ArcadeDBService {
         }
     }
 
-    public void createDatabase() {
+    /**
+     * Creates the database from scratch. If the workspace hash is given, the progress is checkpointed, so an
+     * interrupted import can be continued with {@link #resumeDatabase(ImportSettings)}.
+     */
+    public void createDatabase(final ImportSettings settings, final String workspaceHash) {
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Creating ArcadeDB database...");
-        final DatabaseInternal db = server.createDatabase("BioDWH2");
-        db.getConfiguration().setValue(GlobalConfiguration.BUCKET_DEFAULT_PAGE_SIZE, 1048576);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Effective import configuration: " + settings);
+        final DatabaseInternal db = server.createDatabase(DATABASE_NAME);
+        if (storageSettings.pageSize > 0)
+            db.getConfiguration().setValue(GlobalConfiguration.BUCKET_DEFAULT_PAGE_SIZE, storageSettings.pageSize);
+        ArrayPropertyIndex.registerFunction(db);
+        final ImportReport report = new ImportReport(db, "create");
+        ImportReport.setCurrent(report);
+        invalidateQueryCache();
         try (Graph graph = new Graph(Paths.get(workspacePath, "sources/mapped.db"), true)) {
             Files.createDirectories(databasePath);
-            final HashMap<Long, RID> nodeIdArcadeDBIdMap = new HashMap<>();
-            createNodes(db, graph, nodeIdArcadeDBIdMap);
-            createEdges(db, graph, nodeIdArcadeDBIdMap);
-            createIndices(db, graph);
+            final ImportCheckpoint checkpoint = workspaceHash != null ? ImportCheckpoint.create(databasePath,
+                                                                                                workspaceHash) : null;
+            final ImportReport.Measurement schemaPhase = report.startPhase("schema");
+            createSchema(db, graph, storageSettings);
+            schemaPhase.stop();
+            final NodeIdRIDMap nodeIdArcadeDBIdMap = new NodeIdRIDMap(db, graph.getNumberOfNodes());
+            final LabelFingerprints fingerprints = new LabelFingerprints();
+            final GraphImporter importer = new GraphImporter(db, graph, settings, nodeIdArcadeDBIdMap, fingerprints,
+                                                             report, checkpoint);
+            importGraph(db, graph, settings, importer, nodeIdArcadeDBIdMap, fingerprints, report,
+                        graph.getNodeLabels(), graph.getEdgeLabels());
+            if (checkpoint != null)
+                checkpoint.delete();
         } catch (IOException e) {
             if (LOGGER.isErrorEnabled())
                 LOGGER.error("Failed to create ArcadeDB database '" + databasePath + "'", e);
         }
     }
 
-    private void createNodes(final DatabaseInternal db, final Graph graph,
-                             final HashMap<Long, RID> nodeIdArcadeDBIdMap) {
-        final String[] labels = graph.getNodeLabels();
-        for (int i = 0; i < labels.length; i++) {
-            final String label = labels[i];
-            if (LOGGER.isInfoEnabled())
-                LOGGER.info("Creating nodes with label '" + label + "' (" + (i + 1) + "/" + labels.length + ")...");
-            // Create a node definition for the label
-            final VertexType definition = db.getSchema().createVertexType(label);
-            final Map<String, de.unibi.agbi.biodwh2.core.lang.Type> propertyKeyTypes = graph.getPropertyKeyTypesForNodeLabel(
-                    label);
-            for (final String key : propertyKeyTypes.keySet())
-                if (!Node.IGNORED_FIELDS.contains(key))
-                    definition.createProperty(key, getTypeByPropertyType(propertyKeyTypes.get(key)));
-            // Create the actual nodes
-            for (final Node node : graph.getNodes(label)) {
-                final MutableVertex arcadeNode = db.newVertex(label).modify();
-                for (final String propertyKey : node.keySet())
-                    setPropertySafe(node, arcadeNode, propertyKey);
-                final RID id = arcadeNode.save().getIdentity();
-                nodeIdArcadeDBIdMap.put(node.getId(), id);
+    private void importGraph(final DatabaseInternal db, final Graph graph, final ImportSettings settings,
+                             final GraphImporter importer, final NodeIdRIDMap nodeIdArcadeDBIdMap,
+                             final LabelFingerprints fingerprints, final ImportReport report,
+                             final String[] nodeLabels, final String[] edgeLabels) throws IOException {
+        final ImportReport.Measurement nodesPhase = report.startPhase("nodes");
+        importer.createNodes(nodeLabels);
+        nodesPhase.stop();
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info(nodeIdArcadeDBIdMap.getMemoryReport());
+        final ImportReport.Measurement edgesPhase = report.startPhase("edges");
+        importer.createEdges(edgeLabels);
+        edgesPhase.stop();
+        importer.logPropertyWarnings();
+        final ImportReport.Measurement indicesPhase = report.startPhase("indices");
+        new IndexBuilder(db, settings, report).createIndices(graph.indexDescriptions());
+        indicesPhase.stop();
+        storeImportState(nodeIdArcadeDBIdMap, fingerprints, importer);
+        invalidateQueryCache();
+        report.finish();
+        storeImportReport(report);
+    }
+
+    /**
+     * Whether an interrupted import of the same workspace left a checkpoint to continue from.
+     */
+    public boolean canResumeImport(final String workspaceHash) {
+        if (workspaceHash == null || !ImportCheckpoint.exists(databasePath) || !Files.exists(
+                databasePath.resolve(DATABASE_NAME)))
+            return false;
+        try {
+            final ImportCheckpoint checkpoint = ImportCheckpoint.load(databasePath);
+            if (checkpoint.hasLightEdgesCreated()) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("The interrupted import created light edges, which cannot be discarded, the " +
+                                "checkpoint cannot be used");
+                return false;
             }
+            if (workspaceHash.equals(checkpoint.getWorkspaceHash()))
+                return true;
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("The workspace changed since the interrupted import, the checkpoint cannot be used");
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to load import checkpoint", e);
         }
+        return false;
     }
 
-    private Type getTypeByPropertyType(de.unibi.agbi.biodwh2.core.lang.Type propertyType) {
-        Type type = Type.getTypeByClass(propertyType.getType());
-        if (type == null && propertyType.isList()) {
-            Class<?> componentType = propertyType.getComponentType();
-            // Fallback to string if component type is unknown
-            if (componentType == null)
-                componentType = String.class;
-            type = Type.getTypeByClass(Array.newInstance(componentType, 0).getClass());
+    /**
+     * Continues an interrupted import from its last checkpoint. Labels recorded in the checkpoint whose record count
+     * still matches are kept, all other labels are discarded and imported again. If any node label has to be
+     * imported again, all edges are imported again as well, as they may reference the discarded vertices.
+     */
+    public void resumeDatabase(final ImportSettings settings) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Resuming ArcadeDB database import from checkpoint...");
+        enableWAL(settings, "resumed import");
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Effective import configuration: " + settings);
+        final DatabaseInternal db = server.getDatabase(DATABASE_NAME);
+        final ImportReport report = new ImportReport(db, "resume");
+        ImportReport.setCurrent(report);
+        invalidateQueryCache();
+        try (Graph graph = new Graph(Paths.get(workspacePath, "sources/mapped.db"), true)) {
+            final ImportCheckpoint checkpoint = ImportCheckpoint.load(databasePath);
+            final ImportReport.Measurement schemaPhase = report.startPhase("schema");
+            createSchema(db, graph, storageSettings);
+            schemaPhase.stop();
+            final LabelFingerprints fingerprints = new LabelFingerprints();
+            checkpoint.restoreFingerprints(fingerprints);
+            final NodeIdRIDMap nodeIdArcadeDBIdMap = checkpoint.loadNodeIdMapping(db, graph.getNumberOfNodes());
+            final GraphImporter importer = new GraphImporter(db, graph, settings, nodeIdArcadeDBIdMap, fingerprints,
+                                                             report, checkpoint);
+            final List<String> nodeLabels = new ArrayList<>();
+            for (final String label : graph.getNodeLabels()) {
+                final Long count = checkpoint.getNodeLabelCount(label);
+                if (count != null && count == db.countType(label, false)) {
+                    if (LOGGER.isInfoEnabled())
+                        LOGGER.info("Nodes with label '" + label + "' were already imported");
+                    continue;
+                }
+                checkpoint.removeNodeLabel(label);
+                fingerprints.removeNodeLabel(label);
+                nodeLabels.add(label);
+            }
+            final List<String> edgeLabels = new ArrayList<>();
+            for (final String label : graph.getEdgeLabels()) {
+                final Long count = checkpoint.getEdgeLabelCount(label);
+                if (nodeLabels.isEmpty() && count != null && count == db.countType(label, false)) {
+                    if (LOGGER.isInfoEnabled())
+                        LOGGER.info("Edges with label '" + label + "' were already imported");
+                    continue;
+                }
+                checkpoint.removeEdgeLabel(label);
+                if (db.countType(label, false) > 0)
+                    importer.deleteEdges(label);
+                fingerprints.removeEdgeLabel(label);
+                edgeLabels.add(label);
+            }
+            // Discard the records of interrupted node labels by recreating their types once their edges are gone
+            for (final String label : nodeLabels)
+                if (db.countType(label, false) > 0) {
+                    ArrayPropertyIndex.dropAll(db, label);
+                    db.getSchema().dropType(label);
+                    createNodeType(db, graph, label, storageSettings.vertexBuckets);
+                }
+            importGraph(db, graph, settings, importer, nodeIdArcadeDBIdMap, fingerprints, report,
+                        nodeLabels.toArray(new String[0]), edgeLabels.toArray(new String[0]));
+            checkpoint.delete();
+        } catch (IOException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to resume import into ArcadeDB database '" + databasePath + "'", e);
         }
-        return type;
     }
 
-    private void setPropertySafe(final Node node, final MutableVertex arcadeNode, final String propertyKey) {
-        try {
-            if (!Node.IGNORED_FIELDS.contains(propertyKey)) {
-                Object value = node.getProperty(propertyKey);
-                if (value instanceof Collection)
-                    value = convertCollectionToArray((Collection<?>) value);
-                if (value != null)
-                    arcadeNode.set(propertyKey, value);
-            }
-        } catch (Exception e) {
+    /**
+     * The write ahead log may only be disabled while creating the database from scratch, as a crash while modifying
+     * an existing database without it cannot be recovered from.
+     */
+    private static void enableWAL(final ImportSettings settings, final String operation) {
+        if (!settings.disableWAL)
+            return;
+        if (LOGGER.isWarnEnabled())
+            LOGGER.warn("Disabling the write ahead log is ignored for the " + operation + " of an existing database");
+        settings.disableWAL = false;
+    }
+
+    private void storeImportState(final NodeIdRIDMap nodeIdArcadeDBIdMap, final LabelFingerprints fingerprints,
+                                  final GraphImporter importer) throws IOException {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Storing node id mapping and label fingerprints...");
+        nodeIdArcadeDBIdMap.save(databasePath.resolve(NODE_ID_MAPPING_FILE_NAME));
+        fingerprints.save(databasePath.resolve(FINGERPRINTS_FILE_NAME));
+        final Set<String> lightEdgeLabels = importer.getLightEdgeLabels();
+        if (!lightEdgeLabels.isEmpty())
+            Files.write(databasePath.resolve(LIGHT_EDGE_LABELS_FILE_NAME),
+                        new JSONArray(lightEdgeLabels).toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Flushes cached query results when the database is rebuilt and again once the import finished, as queries may
+     * have cached intermediate results meanwhile. Writes through the import are not observed by the cache, as it only
+     * listens on databases it ran queries on.
+     */
+    private static void invalidateQueryCache() {
+        final QueryResultCache cache = QueryResultCache.getCurrent();
+        if (cache != null)
+            cache.invalidate();
+    }
+
+    private void storeImportReport(final ImportReport report) throws IOException {
+        final Path reportFilePath = databasePath.resolve(ImportReport.FILE_NAME);
+        report.save(reportFilePath);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Stored import report in '" + reportFilePath + "'");
+    }
+
+    /**
+     * Whether the state of the previous import allows an incremental update. Light edges have no records, so a
+     * database storing light edges cannot delete the edges of changed labels and has to be recreated.
+     */
+    public boolean canUpdateDatabase() {
+        if (ImportCheckpoint.isUpdateInterrupted(databasePath)) {
             if (LOGGER.isWarnEnabled())
-                LOGGER.warn(
-                        "Illegal property '" + propertyKey + " -> " + node.getProperty(propertyKey) + "' for node '" +
-                        node.getId() + "[:" + node.getLabel() + "]'");
+                LOGGER.warn("A previous incremental update of the ArcadeDB database was interrupted");
+            return false;
+        }
+        if (Files.exists(databasePath.resolve(LIGHT_EDGE_LABELS_FILE_NAME))) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("The ArcadeDB database stores light edges and cannot be updated incrementally");
+            return false;
         }
+        return Files.exists(databasePath.resolve(DATABASE_NAME)) && Files.exists(
+                databasePath.resolve(NODE_ID_MAPPING_FILE_NAME)) && Files.exists(
+                databasePath.resolve(FINGERPRINTS_FILE_NAME));
     }
 
-    @SuppressWarnings({"SuspiciousToArrayCall"})
-    private Object convertCollectionToArray(final Collection<?> collection) {
-        Class<?> type = null;
-        for (Object t : collection) {
-            if (t != null) {
-                type = t.getClass();
-                break;
+    /**
+     * Incrementally updates the existing database by only touching the node and edge labels whose fingerprint
+     * differs from the one stored during the previous import. The update is marked as running until the new import
+     * state was stored, so an interrupted update leads to a full import instead of trusting the outdated state.
+     */
+    public void updateDatabase(final ImportSettings settings) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Updating ArcadeDB database...");
+        enableWAL(settings, "incremental update");
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Effective import configuration: " + settings);
+        final DatabaseInternal db = server.getDatabase(DATABASE_NAME);
+        final ImportReport report = new ImportReport(db, "update");
+        ImportReport.setCurrent(report);
+        invalidateQueryCache();
+        try (Graph graph = new Graph(Paths.get(workspacePath, "sources/mapped.db"), true)) {
+            final LabelFingerprints fingerprints = LabelFingerprints.load(
+                    databasePath.resolve(FINGERPRINTS_FILE_NAME));
+            final NodeIdRIDMap nodeIdArcadeDBIdMap = NodeIdRIDMap.load(db, databasePath.resolve(
+                    NODE_ID_MAPPING_FILE_NAME));
+            final GraphImporter importer = new GraphImporter(db, graph, settings, nodeIdArcadeDBIdMap, fingerprints,
+                                                             report, null);
+            ImportCheckpoint.markUpdateStarted(databasePath);
+            // Fingerprint every label only once, as it reads all of its nodes or edges
+            final Set<String> changedNodeLabels = findChangedNodeLabels(graph, fingerprints);
+            final Set<String> changedEdgeLabels = findChangedEdgeLabels(graph, fingerprints);
+            final ImportReport.Measurement schemaPhase = report.startPhase("schema");
+            dropChangedArrayPropertyIndices(db, graph, fingerprints, changedNodeLabels, changedEdgeLabels);
+            schemaPhase.stop();
+            // Nodes
+            final ImportReport.Measurement nodesPhase = report.startPhase("nodes");
+            final Set<String> removedNodeLabels = fingerprints.getNodeLabels();
+            final List<String> newNodeLabels = new ArrayList<>();
+            for (final String label : graph.getNodeLabels()) {
+                removedNodeLabels.remove(label);
+                final String storedFingerprint = fingerprints.getNodeLabel(label);
+                if (storedFingerprint == null)
+                    newNodeLabels.add(label);
+                else if (changedNodeLabels.contains(label)) {
+                    createNodeType(db, graph, label, storageSettings.vertexBuckets);
+                    importer.updateNodes(label);
+                } else if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Nodes with label '" + label + "' are unchanged");
+            }
+            for (final String label : removedNodeLabels) {
+                importer.deleteNodes(label);
+                db.getSchema().dropType(label);
+            }
+            for (final String label : newNodeLabels)
+                createNodeType(db, graph, label, storageSettings.vertexBuckets);
+            importer.createNodes(newNodeLabels.toArray(new String[0]));
+            nodesPhase.stop();
+            // Edges
+            final ImportReport.Measurement edgesPhase = report.startPhase("edges");
+            final Set<String> removedEdgeLabels = fingerprints.getEdgeLabels();
+            final List<String> importedEdgeLabels = new ArrayList<>();
+            for (final String label : graph.getEdgeLabels()) {
+                removedEdgeLabels.remove(label);
+                final String storedFingerprint = fingerprints.getEdgeLabel(label);
+                if (storedFingerprint == null)
+                    importedEdgeLabels.add(label);
+                else if (changedEdgeLabels.contains(label)) {
+                    importer.deleteEdges(label);
+                    importedEdgeLabels.add(label);
+                } else if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Edges with label '" + label + "' are unchanged");
+            }
+            for (final String label : removedEdgeLabels) {
+                importer.deleteEdges(label);
+                db.getSchema().dropType(label);
             }
+            for (final String label : importedEdgeLabels)
+                createEdgeType(db, graph, label, storageSettings.edgeBuckets);
+            importer.createEdges(importedEdgeLabels.toArray(new String[0]));
+            edgesPhase.stop();
+            importer.logPropertyWarnings();
+            final ImportReport.Measurement indicesPhase = report.startPhase("indices");
+            new IndexBuilder(db, settings, report).createIndices(graph.indexDescriptions());
+            indicesPhase.stop();
+            storeImportState(nodeIdArcadeDBIdMap, fingerprints, importer);
+            ImportCheckpoint.markUpdateFinished(databasePath);
+            invalidateQueryCache();
+            report.finish();
+            storeImportReport(report);
+        } catch (IOException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to update ArcadeDB database '" + databasePath + "'", e);
         }
-        if (type != null) {
-            if (type.equals(String.class))
-                return collection.stream().map(type::cast).toArray(String[]::new);
-            if (type.equals(Boolean.class))
-                return collection.stream().map(type::cast).toArray(Boolean[]::new);
-            if (type.equals(Integer.class))
-                return collection.stream().map(type::cast).toArray(Integer[]::new);
-            if (type.equals(Float.class))
-                return collection.stream().map(type::cast).toArray(Float[]::new);
-            if (type.equals(Long.class))
-                return collection.stream().map(type::cast).toArray(Long[]::new);
-            if (type.equals(Double.class))
-                return collection.stream().map(type::cast).toArray(Double[]::new);
-            if (type.equals(Byte.class))
-                return collection.stream().map(type::cast).toArray(Byte[]::new);
-            if (type.equals(Short.class))
-                return collection.stream().map(type::cast).toArray(Short[]::new);
+    }
+
+    /**
+     * Array property indices are stored in auxiliary types, which are not maintained by ArcadeDB and have to be
+     * rebuilt for every label that changed or was removed.
+     */
+    private void dropChangedArrayPropertyIndices(final DatabaseInternal db, final Graph graph,
+                                                 final LabelFingerprints fingerprints,
+                                                 final Set<String> changedNodeLabels,
+                                                 final Set<String> changedEdgeLabels) {
+        for (final String label : fingerprints.getNodeLabels())
+            if (changedNodeLabels.contains(label) || !Arrays.asList(graph.getNodeLabels()).contains(label))
+                ArrayPropertyIndex.dropAll(db, label);
+        for (final String label : fingerprints.getEdgeLabels())
+            if (changedEdgeLabels.contains(label) || !Arrays.asList(graph.getEdgeLabels()).contains(label))
+                ArrayPropertyIndex.dropAll(db, label);
+    }
+
+    /**
+     * The labels of the previous import whose nodes differ in the workspace.
+     */
+    private static Set<String> findChangedNodeLabels(final Graph graph, final LabelFingerprints fingerprints) {
+        final Set<String> result = new HashSet<>();
+        for (final String label : graph.getNodeLabels()) {
+            final String storedFingerprint = fingerprints.getNodeLabel(label);
+            if (storedFingerprint != null && !storedFingerprint.equals(computeNodeLabelFingerprint(graph, label)))
+                result.add(label);
         }
-        return collection.stream().map(Object::toString).toArray(String[]::new);
+        return result;
     }
 
-    private void createEdges(final DatabaseInternal db, final Graph graph,
-                             final HashMap<Long, RID> nodeIdArcadeDBIdMap) {
-        final String[] labels = graph.getEdgeLabels();
-        for (int i = 0; i < labels.length; i++) {
-            final String label = labels[i];
-            if (LOGGER.isInfoEnabled())
-                LOGGER.info("Creating edges with label '" + label + "' (" + (i + 1) + "/" + labels.length + ")...");
-            // Create an edge definition for the label
-            final EdgeType definition = db.getSchema().createEdgeType(label);
-            final Map<String, de.unibi.agbi.biodwh2.core.lang.Type> propertyKeyTypes = graph.getPropertyKeyTypesForEdgeLabel(
-                    label);
-            for (final String key : propertyKeyTypes.keySet())
-                if (!Edge.IGNORED_FIELDS.contains(key))
-                    definition.createProperty(key, getTypeByPropertyType(propertyKeyTypes.get(key)));
-            // Create the actual edges
-            for (final Edge edge : graph.getEdges(label)) {
-                final Vertex fromNode = db.lookupByRID(nodeIdArcadeDBIdMap.get(edge.getFromId()), false).asVertex(
-                        false);
-                final RID toNodeId = nodeIdArcadeDBIdMap.get(edge.getToId());
-                final MutableEdge arcadeEdge = fromNode.newEdge(edge.getLabel(), toNodeId, false).modify();
-                for (final String propertyKey : edge.keySet())
-                    if (!Edge.IGNORED_FIELDS.contains(propertyKey)) {
-                        Object value = edge.getProperty(propertyKey);
-                        if (value instanceof Collection)
-                            value = convertCollectionToArray((Collection<?>) value);
-                        if (value != null)
-                            arcadeEdge.set(propertyKey, value);
-                    }
-                arcadeEdge.save();
-            }
+    /**
+     * The labels of the previous import whose edges differ in the workspace.
+     */
+    private static Set<String> findChangedEdgeLabels(final Graph graph, final LabelFingerprints fingerprints) {
+        final Set<String> result = new HashSet<>();
+        for (final String label : graph.getEdgeLabels()) {
+            final String storedFingerprint = fingerprints.getEdgeLabel(label);
+            if (storedFingerprint != null && !storedFingerprint.equals(computeEdgeLabelFingerprint(graph, label)))
+                result.add(label);
         }
+        return result;
+    }
+
+    private static String computeNodeLabelFingerprint(final Graph graph, final String label) {
+        final LabelFingerprints.Accumulator fingerprint = new LabelFingerprints.Accumulator();
+        for (final Node node : graph.getNodes(label))
+            fingerprint.add(LabelFingerprints.hash(node));
+        return fingerprint.toString();
     }
 
-    private void createIndices(final DatabaseInternal db, final Graph graph) {
+    private static String computeEdgeLabelFingerprint(final Graph graph, final String label) {
+        final LabelFingerprints.Accumulator fingerprint = new LabelFingerprints.Accumulator();
+        for (final Edge edge : graph.getEdges(label))
+            fingerprint.add(LabelFingerprints.hash(edge));
+        return fingerprint.toString();
+    }
+
+    static void createSchema(final DatabaseInternal db, final Graph graph, final StorageSettings storageSettings) {
         if (LOGGER.isInfoEnabled())
-            LOGGER.info("Creating indices...");
-        final IndexDescription[] indices = graph.indexDescriptions();
-        for (final IndexDescription index : indices) {
-            if (index.isArrayProperty()) {
-                if (LOGGER.isInfoEnabled())
-                    LOGGER.info("Skipping " + index.getType() + " index creation on '" + index.getProperty() +
-                                "' field for " + index.getTarget() + " label '" + index.getLabel() +
-                                "' as array indices are not yet supported by ArcadeDB");
-                continue;
-            }
-            if (LOGGER.isInfoEnabled())
-                LOGGER.info("Creating " + index.getType() + " index on '" + index.getProperty() + "' field for " +
-                            index.getTarget() + " label '" + index.getLabel() + "'...");
-            final boolean isUnique = index.getType() == IndexDescription.Type.UNIQUE;
-            try {
-                db.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, isUnique, index.getLabel(),
-                                               new String[]{index.getProperty()}, LSMTreeIndexAbstract.DEF_PAGE_SIZE,
-                                               LSMTreeIndexAbstract.NULL_STRATEGY.SKIP, null);
-            } catch (IndexException e) {
-                LOGGER.warn("Error during " + index.getType() + " index creation on '" + index.getProperty() +
-                            "' field for " + index.getTarget() + " label '" + index.getLabel() + "'");
-            }
+            LOGGER.info("Creating schema...");
+        for (final String label : graph.getNodeLabels())
+            createNodeType(db, graph, label, storageSettings.vertexBuckets);
+        for (final String label : graph.getEdgeLabels())
+            createEdgeType(db, graph, label, storageSettings.edgeBuckets);
+    }
+
+    private static void createNodeType(final DatabaseInternal db, final Graph graph, final String label,
+                                       final int buckets) {
+        // Create a node definition for the label
+        final VertexType definition;
+        if (db.getSchema().existsType(label))
+            definition = (VertexType) db.getSchema().getType(label);
+        else
+            definition = buckets > 0 ? db.getSchema().createVertexType(label, buckets) :
+                         db.getSchema().createVertexType(label);
+        final Map<String, de.unibi.agbi.biodwh2.core.lang.Type> propertyKeyTypes = graph.getPropertyKeyTypesForNodeLabel(
+                label);
+        for (final String key : propertyKeyTypes.keySet())
+            if (!Node.IGNORED_FIELDS.contains(key) && !definition.existsProperty(key))
+                definition.createProperty(key, getTypeByPropertyType(propertyKeyTypes.get(key)));
+    }
+
+    private static void createEdgeType(final DatabaseInternal db, final Graph graph, final String label,
+                                       final int buckets) {
+        // Create an edge definition for the label
+        final EdgeType definition;
+        if (db.getSchema().existsType(label))
+            definition = (EdgeType) db.getSchema().getType(label);
+        else
+            definition = buckets > 0 ? db.getSchema().createEdgeType(label, buckets) :
+                         db.getSchema().createEdgeType(label);
+        final Map<String, de.unibi.agbi.biodwh2.core.lang.Type> propertyKeyTypes = graph.getPropertyKeyTypesForEdgeLabel(
+                label);
+        for (final String key : propertyKeyTypes.keySet())
+            if (!Edge.IGNORED_FIELDS.contains(key) && !definition.existsProperty(key))
+                definition.createProperty(key, getTypeByPropertyType(propertyKeyTypes.get(key)));
+    }
+
+    private static Type getTypeByPropertyType(de.unibi.agbi.biodwh2.core.lang.Type propertyType) {
+        Type type = Type.getTypeByClass(propertyType.getType());
+        if (type == null && propertyType.isList()) {
+            Class<?> componentType = propertyType.getComponentType();
+            // Fallback to string if component type is unknown
+            if (componentType == null)
+                componentType = String.class;
+            type = Type.getTypeByClass(Array.newInstance(componentType, 0).getClass());
         }
+        return type;
+    }
+
+    /**
+     * Replays the benchmark workload against the HTTP query endpoint of the running server and returns the report.
+     */
+    public JSONObject runBenchmark(final BenchmarkSettings settings) throws IOException, InterruptedException {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Running query benchmark (" + settings + ")...");
+        final QueryBenchmark benchmark = new QueryBenchmark(server.getHttpServer().getPort(), DATABASE_NAME,
+                                                            "biodwh2", "biodwh2", settings);
+        final JSONObject report = benchmark.run();
+        report.put("storageConfiguration", storageSettings.toString());
+        report.put("serverConfiguration", serverSettings.toString());
+        return report;
     }
 
     public void openBrowser() {
@@ -0,0 +1,28 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.server.ArcadeDBServer;
+import com.arcadedb.server.ServerPlugin;
+
+/**
+ * Registers the {@code arrayIndexLookup} SQL function of the {@link ArrayPropertyIndex} on the BioDWH2 database
+ * opened by the server. Functions are registered on the SQL query engine of a database instance, so they have to be
+ * registered again whenever the server opens the database, which the plugin does on every server start. Databases
+ * created while the server is running are registered by {@link ArcadeDBService#createDatabase}.
+ */
+public class ArrayIndexLookupPlugin implements ServerPlugin {
+    static final String NAME = "BioDWH2ArrayIndexLookup";
+
+    private ArcadeDBServer server;
+
+    @Override
+    public void configure(final ArcadeDBServer arcadeDBServer, final ContextConfiguration configuration) {
+        server = arcadeDBServer;
+    }
+
+    @Override
+    public void startService() {
+        if (server.existsDatabase(ArcadeDBService.DATABASE_NAME))
+            ArrayPropertyIndex.registerFunction(server.getDatabase(ArcadeDBService.DATABASE_NAME));
+    }
+}
@@ -0,0 +1,183 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.*;
+import com.arcadedb.database.Record;
+import com.arcadedb.index.IndexCursor;
+import com.arcadedb.index.lsm.LSMTreeIndexAbstract;
+import com.arcadedb.query.sql.SQLQueryEngine;
+import com.arcadedb.query.sql.executor.CommandContext;
+import com.arcadedb.query.sql.function.SQLFunctionAbstract;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.Schema;
+import com.arcadedb.schema.Type;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * ArcadeDB cannot index array properties. Instead, every element of an indexed array property is stored as a
+ * separate document with a {@code value} and an {@code owner} link in an auxiliary type named
+ * {@code ArrayIndex_<label>__<property>}, whose {@code value} property is indexed. Membership lookups are available
+ * through {@link #lookup(Database, String, String, Object)} and the SQL function
+ * {@code arrayIndexLookup('<label>', '<property>', <value>)}, e.g.
+ * {@code SELECT expand(arrayIndexLookup('Gene', 'synonyms', 'p53'))}.
+ */
+final class ArrayPropertyIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArrayPropertyIndex.class);
+    static final String TYPE_PREFIX = "ArrayIndex_";
+    static final String VALUE_PROPERTY = "value";
+    static final String OWNER_PROPERTY = "owner";
+
+    private ArrayPropertyIndex() {
+    }
+
+    static String getTypeName(final String label, final String property) {
+        return TYPE_PREFIX + label + "__" + property;
+    }
+
+    /**
+     * Whether the auxiliary type exists and was indexed, which is the last step of {@link #build}.
+     */
+    static boolean exists(final Database db, final String label, final String property) {
+        final String typeName = getTypeName(label, property);
+        return db.getSchema().existsType(typeName) &&
+               db.getSchema().getType(typeName).getPolymorphicIndexByProperties(VALUE_PROPERTY) != null;
+    }
+
+    static void drop(final Database db, final String label, final String property) {
+        final String typeName = getTypeName(label, property);
+        if (db.getSchema().existsType(typeName))
+            db.getSchema().dropType(typeName);
+    }
+
+    static void dropAll(final Database db, final String label) {
+        final String prefix = TYPE_PREFIX + label + "__";
+        for (final DocumentType type : db.getSchema().getTypes())
+            if (type.getName().startsWith(prefix))
+                db.getSchema().dropType(type.getName());
+    }
+
+    /**
+     * Creates the auxiliary type holding all elements of the array property of the label and indexes it. The schema
+     * changes are made while holding the schema lock, as the schema is not safe for concurrent changes, the elements
+     * are written without it.
+     */
+    static void build(final DatabaseInternal db, final ImportSettings settings, final String label,
+                      final String property, final int pageSize, final Object schemaLock) {
+        final String typeName = getTypeName(label, property);
+        final Type elementType = findElementType(db, label, property);
+        synchronized (schemaLock) {
+            drop(db, label, property);
+            final DocumentType type = db.getSchema().createDocumentType(typeName);
+            type.createProperty(OWNER_PROPERTY, Type.LINK);
+            type.createProperty(VALUE_PROPERTY, elementType);
+        }
+        final BatchCommitter committer = new BatchCommitter(db, settings, typeName);
+        long elementCount = 0;
+        committer.begin();
+        try {
+            final Iterator<Record> iterator = db.iterateType(label, false);
+            while (iterator.hasNext()) {
+                final Record record = iterator.next();
+                final Object value = record.asDocument().get(property);
+                if (value == null)
+                    continue;
+                for (final Object element : getElements(value)) {
+                    if (element == null)
+                        continue;
+                    final MutableDocument document = db.newDocument(typeName);
+                    document.set(VALUE_PROPERTY, element);
+                    document.set(OWNER_PROPERTY, record.getIdentity());
+                    document.save();
+                    committer.recordSaved(BatchCommitter.estimateSize(element) + 16);
+                    elementCount++;
+                }
+            }
+            committer.finish();
+        } catch (RuntimeException e) {
+            committer.rollback();
+            throw e;
+        }
+        synchronized (schemaLock) {
+            db.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, false, typeName, new String[]{VALUE_PROPERTY},
+                                           pageSize, LSMTreeIndexAbstract.NULL_STRATEGY.SKIP, null);
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Indexed " + elementCount + " array elements of '" + property + "' for label '" + label +
+                        "' in type '" + typeName + "'");
+    }
+
+    private static Iterable<?> getElements(final Object value) {
+        if (value instanceof Collection)
+            return (Collection<?>) value;
+        if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            final List<Object> elements = new ArrayList<>(length);
+            for (int i = 0; i < length; i++)
+                elements.add(Array.get(value, i));
+            return elements;
+        }
+        return Collections.singletonList(value);
+    }
+
+    private static Type findElementType(final Database db, final String label, final String property) {
+        final Iterator<Record> iterator = db.iterateType(label, false);
+        while (iterator.hasNext()) {
+            final Object value = iterator.next().asDocument().get(property);
+            if (value != null)
+                for (final Object element : getElements(value))
+                    if (element != null) {
+                        final Type type = Type.getTypeByValue(element);
+                        return type != null ? type : Type.STRING;
+                    }
+        }
+        return Type.STRING;
+    }
+
+    /**
+     * Returns the identities of all records of the label whose array property contains the value.
+     */
+    static List<RID> lookup(final Database db, final String label, final String property, final Object value) {
+        final List<RID> result = new ArrayList<>();
+        final String typeName = getTypeName(label, property);
+        if (!db.getSchema().existsType(typeName))
+            return result;
+        final Set<RID> seen = new HashSet<>();
+        final IndexCursor cursor = db.lookupByKey(typeName, VALUE_PROPERTY, value);
+        while (cursor.hasNext()) {
+            final Object owner = cursor.next().asDocument().get(OWNER_PROPERTY);
+            if (owner instanceof Identifiable && seen.add(((Identifiable) owner).getIdentity()))
+                result.add(((Identifiable) owner).getIdentity());
+        }
+        return result;
+    }
+
+    static void registerFunction(final DatabaseInternal db) {
+        ((SQLQueryEngine) db.getQueryEngine("sql")).getFunctionFactory().register(LookupFunction.NAME,
+                                                                                 new LookupFunction());
+    }
+
+    private static final class LookupFunction extends SQLFunctionAbstract {
+        static final String NAME = "arrayIndexLookup";
+
+        LookupFunction() {
+            super(NAME);
+        }
+
+        @Override
+        public Object execute(final Object self, final Identifiable currentRecord, final Object currentResult,
+                              final Object[] params, final CommandContext context) {
+            if (params.length != 3)
+                throw new IllegalArgumentException("Syntax error: " + getSyntax());
+            return lookup(context.getDatabase(), String.valueOf(params[0]), String.valueOf(params[1]), params[2]);
+        }
+
+        @Override
+        public String getSyntax() {
+            return NAME + "(<label>, <property>, <value>)";
+        }
+    }
+}
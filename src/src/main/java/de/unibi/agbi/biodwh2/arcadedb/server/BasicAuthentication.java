@@ -0,0 +1,44 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.server.ArcadeDBServer;
+import com.arcadedb.server.security.ServerSecurityException;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Basic authentication of the BioDWH2 plugin endpoints against the ArcadeDB server users, as required by the ArcadeDB
+ * HTTP API itself.
+ */
+final class BasicAuthentication {
+    private BasicAuthentication() {
+    }
+
+    /**
+     * Authenticates the user of the request for the database, or for the server if no database is given. Otherwise,
+     * the request is answered with 401 and false is returned.
+     */
+    static boolean authenticate(final ArcadeDBServer server, final HttpServerExchange exchange,
+                                final String databaseName) {
+        final String authorization = exchange.getRequestHeaders().getFirst(Headers.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith("Basic ")) {
+            try {
+                final String credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+                                                      StandardCharsets.UTF_8);
+                final int separatorIndex = credentials.indexOf(':');
+                if (separatorIndex > 0) {
+                    server.getSecurity().authenticate(credentials.substring(0, separatorIndex),
+                                                      credentials.substring(separatorIndex + 1), databaseName);
+                    return true;
+                }
+            } catch (ServerSecurityException | IllegalArgumentException ignored) {
+            }
+        }
+        exchange.getResponseHeaders().put(Headers.WWW_AUTHENTICATE, "Basic");
+        exchange.setStatusCode(StatusCodes.UNAUTHORIZED);
+        return false;
+    }
+}
@@ -0,0 +1,125 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.engine.WALFile;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups saved records into explicit transactions which are committed once the configured number of records or
+ * estimated bytes is reached. Without bulk import every record is committed on its own.
+ */
+final class BatchCommitter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchCommitter.class);
+
+    private final Database db;
+    private final String label;
+    private final int batchSize;
+    private final long batchBytes;
+    private final boolean useWAL;
+    private final boolean logBatches;
+    private long batchRecords;
+    private long batchEstimatedBytes;
+    private long batchStartTime;
+    private long batchCount;
+    private long totalRecords;
+    private long totalEstimatedBytes;
+
+    BatchCommitter(final Database db, final ImportSettings settings, final String label) {
+        this.db = db;
+        this.label = label;
+        batchSize = settings.bulkImport ? settings.batchSize : 1;
+        batchBytes = settings.bulkImport ? settings.batchBytes : 0;
+        useWAL = !settings.disableWAL;
+        logBatches = settings.bulkImport;
+    }
+
+    void begin() {
+        db.begin();
+        if (!useWAL) {
+            db.setUseWAL(false);
+            db.setWALFlush(WALFile.FLUSH_TYPE.NO);
+        }
+        batchRecords = 0;
+        batchEstimatedBytes = 0;
+        batchStartTime = System.nanoTime();
+    }
+
+    boolean recordSaved(final long estimatedBytes) {
+        recordWritten(estimatedBytes);
+        if (isBatchFull()) {
+            commit();
+            begin();
+            return true;
+        }
+        return false;
+    }
+
+    void recordWritten(final long estimatedBytes) {
+        batchRecords++;
+        batchEstimatedBytes += estimatedBytes;
+    }
+
+    /**
+     * Whether the current transaction reached the configured number of records or estimated bytes.
+     */
+    boolean isBatchFull() {
+        return batchRecords >= batchSize || (batchBytes > 0 && batchEstimatedBytes >= batchBytes);
+    }
+
+    void finish() {
+        commit();
+        logSummary();
+    }
+
+    void logSummary() {
+        if (logBatches && LOGGER.isInfoEnabled())
+            LOGGER.info("Committed " + totalRecords + " records with label '" + label + "' in " + batchCount +
+                        " batches");
+    }
+
+    void rollback() {
+        if (db.isTransactionActive())
+            db.rollback();
+        batchRecords = 0;
+        batchEstimatedBytes = 0;
+    }
+
+    void commit() {
+        db.commit();
+        totalRecords += batchRecords;
+        totalEstimatedBytes += batchEstimatedBytes;
+        if (batchRecords == 0)
+            return;
+        batchCount++;
+        if (logBatches && LOGGER.isInfoEnabled()) {
+            final double seconds = Math.max(System.nanoTime() - batchStartTime, 1) / 1e9;
+            LOGGER.info(String.format("Committed batch %d of label '%s' with %d records (~%d bytes, %.0f records/s)",
+                                      batchCount, label, batchRecords, batchEstimatedBytes,
+                                      batchRecords / seconds));
+        }
+    }
+
+    long getTotalRecords() {
+        return totalRecords;
+    }
+
+    long getTotalEstimatedBytes() {
+        return totalEstimatedBytes;
+    }
+
+    static long estimateSize(final Object value) {
+        if (value == null)
+            return 0;
+        if (value instanceof String)
+            return ((String) value).length() + 4;
+        if (value instanceof Object[]) {
+            long size = 4;
+            for (final Object element : (Object[]) value)
+                size += estimateSize(element);
+            return size;
+        }
+        return 8;
+    }
+}
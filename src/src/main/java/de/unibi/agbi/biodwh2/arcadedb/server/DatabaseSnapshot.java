@@ -0,0 +1,200 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compressed snapshot of a finished database directory, tagged with the hash of the workspace it was imported from.
+ * The snapshot is a zip archive which is written in a single streaming pass. Its manifest lists the SHA-256 checksum
+ * of every file, and the files are verified while they are extracted in parallel on restore.
+ */
+final class DatabaseSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseSnapshot.class);
+    static final String MANIFEST_ENTRY_NAME = "snapshot.json";
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private DatabaseSnapshot() {
+    }
+
+    static void export(final Path databasePath, final Path snapshotFilePath, final String workspaceHash,
+                       final int compressionLevel) throws IOException {
+        final List<Path> files = listFiles(databasePath);
+        final JSONArray filesJson = new JSONArray();
+        final Path temporaryFilePath = snapshotFilePath.resolveSibling(snapshotFilePath.getFileName() + ".tmp");
+        try (ZipOutputStream stream = new ZipOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporaryFilePath), BUFFER_SIZE))) {
+            stream.setLevel(compressionLevel);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            for (final Path file : files) {
+                final String name = databasePath.relativize(file).toString().replace(File.separatorChar, '/');
+                stream.putNextEntry(new ZipEntry(name));
+                final MessageDigest digest = createDigest();
+                try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+                    int read;
+                    while ((read = input.read(buffer)) != -1)
+                        stream.write(buffer, 0, read);
+                }
+                stream.closeEntry();
+                final JSONObject fileJson = new JSONObject();
+                fileJson.put("name", name);
+                fileJson.put("size", Files.size(file));
+                fileJson.put("sha256", toHex(digest.digest()));
+                filesJson.put(fileJson);
+            }
+            final JSONObject manifest = new JSONObject();
+            manifest.put("workspaceHash", workspaceHash);
+            manifest.put("created", System.currentTimeMillis());
+            manifest.put("files", filesJson);
+            stream.putNextEntry(new ZipEntry(MANIFEST_ENTRY_NAME));
+            stream.write(manifest.toString(2).getBytes(StandardCharsets.UTF_8));
+            stream.closeEntry();
+        }
+        Files.move(temporaryFilePath, snapshotFilePath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lists the files of the database directory, excluding lock files and the state of an interrupted import.
+     */
+    private static List<Path> listFiles(final Path databasePath) throws IOException {
+        try (Stream<Path> paths = Files.walk(databasePath)) {
+            return paths.filter(Files::isRegularFile).filter(path -> {
+                final String name = path.getFileName().toString();
+                return !name.endsWith(".lck") && !name.endsWith(".tmp") && !name.equals(
+                        ImportCheckpoint.FILE_NAME) && !name.equals(ImportCheckpoint.NODE_ID_MAPPING_LOG_FILE_NAME) &&
+                       !name.equals(ImportCheckpoint.UPDATE_MARKER_FILE_NAME);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    static String readWorkspaceHash(final Path snapshotFilePath) throws IOException {
+        try (ZipFile zipFile = new ZipFile(snapshotFilePath.toFile())) {
+            return readManifest(zipFile).getString("workspaceHash");
+        }
+    }
+
+    private static JSONObject readManifest(final ZipFile zipFile) throws IOException {
+        final ZipEntry entry = zipFile.getEntry(MANIFEST_ENTRY_NAME);
+        if (entry == null)
+            throw new IOException("Snapshot '" + zipFile.getName() + "' has no manifest");
+        try (InputStream stream = zipFile.getInputStream(entry)) {
+            return new JSONObject(IOUtils.toString(stream, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Extracts the snapshot next to the database directory and replaces the directory once all files were extracted
+     * and verified, so a failed restore keeps the previous database.
+     */
+    static void restore(final Path snapshotFilePath, final Path databasePath, final int threads) throws IOException {
+        final Path temporaryPath = databasePath.resolveSibling(databasePath.getFileName() + ".snapshot-tmp");
+        FileUtils.deleteDirectory(temporaryPath.toFile());
+        Files.createDirectories(temporaryPath);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ZipFile zipFile = new ZipFile(snapshotFilePath.toFile())) {
+            final JSONArray filesJson = readManifest(zipFile).getJSONArray("files");
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < filesJson.length(); i++) {
+                final JSONObject fileJson = filesJson.getJSONObject(i);
+                futures.add(executor.submit(() -> {
+                    extract(zipFile, fileJson, temporaryPath);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures)
+                waitFor(future);
+        } catch (IOException | RuntimeException e) {
+            stopExtraction(executor);
+            FileUtils.deleteDirectory(temporaryPath.toFile());
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        FileUtils.deleteDirectory(databasePath.toFile());
+        Files.move(temporaryPath, databasePath);
+    }
+
+    private static void extract(final ZipFile zipFile, final JSONObject fileJson,
+                                final Path targetPath) throws IOException {
+        final String name = fileJson.getString("name");
+        final Path file = targetPath.resolve(name).normalize();
+        final ZipEntry entry = zipFile.getEntry(name);
+        if (entry == null || !file.startsWith(targetPath.normalize()))
+            throw new IOException("Invalid snapshot entry '" + name + "'");
+        Files.createDirectories(file.getParent());
+        final MessageDigest digest = createDigest();
+        try (InputStream input = zipFile.getInputStream(entry);
+             OutputStream output = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1)
+                output.write(buffer, 0, read);
+        }
+        if (!toHex(digest.digest()).equals(fileJson.getString("sha256")))
+            throw new IOException("Checksum mismatch of snapshot entry '" + name + "'");
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Extracted '" + name + "'");
+    }
+
+    private static void stopExtraction(final ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(final Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while restoring snapshot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Failed to restore snapshot", e.getCause());
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes)
+            builder.append(String.format("%02x", b));
+        return builder.toString();
+    }
+}
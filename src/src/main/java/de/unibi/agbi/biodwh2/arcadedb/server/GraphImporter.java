@@ -0,0 +1,747 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.MutableDocument;
+import com.arcadedb.database.RID;
+import com.arcadedb.database.Record;
+import com.arcadedb.engine.Bucket;
+import com.arcadedb.exception.NeedRetryException;
+import com.arcadedb.graph.MutableEdge;
+import com.arcadedb.graph.MutableVertex;
+import com.arcadedb.graph.Vertex;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import de.unibi.agbi.biodwh2.core.model.graph.Edge;
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Imports the nodes and edges of a BioDWH2 graph into an ArcadeDB database whose schema has already been created.
+ * With more than one thread, node labels are imported concurrently and edges are routed to writer threads
+ * partitioned by the bucket of their source vertex, so a vertex is only ever modified by a single writer.
+ * <p>
+ * Edge labels without properties can be stored as light edges, which only exist as entries in the edge segments of
+ * their vertices. Optionally, the out-degree of every vertex is counted before the edges are created, so hub vertices
+ * start with a large edge segment instead of a long chain of small ones.
+ */
+final class GraphImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphImporter.class);
+    private static final int MAX_BATCH_RETRIES = 10;
+    private static final int WRITER_QUEUE_CAPACITY = 4;
+    /**
+     * Vertices with more outgoing edges get a presized edge segment.
+     */
+    private static final int HUB_DEGREE = 128;
+    /**
+     * Upper estimate of the compressed edge and vertex RIDs per edge segment entry.
+     */
+    private static final int EDGE_SEGMENT_BYTES_PER_EDGE = 12;
+    private static final int MAX_EDGE_SEGMENT_SIZE = 8192;
+
+    private final DatabaseInternal db;
+    private final Graph graph;
+    private final ImportSettings settings;
+    private final NodeIdRIDMap nodeIdArcadeDBIdMap;
+    private final LabelFingerprints fingerprints;
+    private final ImportReport report;
+    private final ImportCheckpoint checkpoint;
+    private final Map<String, PropertyWritePlan> nodeWritePlans = new ConcurrentHashMap<>();
+    private final Map<String, PropertyWritePlan> edgeWritePlans = new ConcurrentHashMap<>();
+    private final PropertyWarningCollector propertyWarnings = new PropertyWarningCollector();
+    private final Set<String> lightEdgeLabels = ConcurrentHashMap.newKeySet();
+    private int defaultEdgeListSize;
+    private int edgeListSize;
+
+    GraphImporter(final DatabaseInternal db, final Graph graph, final ImportSettings settings,
+                  final NodeIdRIDMap nodeIdArcadeDBIdMap, final LabelFingerprints fingerprints,
+                  final ImportReport report, final ImportCheckpoint checkpoint) {
+        this.db = db;
+        this.graph = graph;
+        this.settings = settings;
+        this.nodeIdArcadeDBIdMap = nodeIdArcadeDBIdMap;
+        this.fingerprints = fingerprints;
+        this.report = report;
+        this.checkpoint = checkpoint;
+    }
+
+    void createNodes(final String[] labels) {
+        if (settings.threads > 1) {
+            createNodesParallel(labels);
+            return;
+        }
+        for (int i = 0; i < labels.length; i++) {
+            final String label = labels[i];
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Creating nodes with label '" + label + "' (" + (i + 1) + "/" + labels.length + ")...");
+            final ImportReport.Measurement measurement = report.startLabel("nodes", label);
+            final BatchCommitter committer = new BatchCommitter(db, settings, label);
+            final LabelFingerprints.Accumulator fingerprint = new LabelFingerprints.Accumulator();
+            committer.begin();
+            try {
+                if (settings.pipelineCapacity > 0) {
+                    // Read and convert the nodes in background threads while this thread writes them
+                    new ImportPipeline<Node, PreparedNode>("nodes-" + label, settings.pipelineCapacity).run(
+                            graph.getNodes(label), node -> {
+                                fingerprint.add(LabelFingerprints.hash(node));
+                                return new PreparedNode(node, prepareNodeProperties(node));
+                            }, prepared -> committer.recordSaved(createNode(prepared.node, prepared.properties)));
+                } else {
+                    for (final Node node : graph.getNodes(label)) {
+                        fingerprint.add(LabelFingerprints.hash(node));
+                        committer.recordSaved(createNode(node));
+                    }
+                }
+                committer.finish();
+            } catch (RuntimeException e) {
+                committer.rollback();
+                throw e;
+            }
+            measurement.stop(committer.getTotalRecords(), committer.getTotalEstimatedBytes());
+            nodeLabelCompleted(label, committer.getTotalRecords(), fingerprint);
+        }
+    }
+
+    private long createNode(final Node node) {
+        return createNode(node, prepareNodeProperties(node));
+    }
+
+    private long createNode(final Node node, final PreparedProperties properties) {
+        final MutableVertex arcadeNode = db.newVertex(node.getLabel());
+        setProperties(arcadeNode, properties, node.getLabel(), node.getId());
+        final RID id = arcadeNode.save().getIdentity();
+        nodeIdArcadeDBIdMap.put(node.getId(), id);
+        return properties.estimatedBytes;
+    }
+
+    private long updateNode(final RID id, final Node node) {
+        final MutableVertex arcadeNode = db.lookupByRID(id, true).asVertex().modify();
+        for (final String propertyKey : new ArrayList<>(arcadeNode.getPropertyNames()))
+            arcadeNode.remove(propertyKey);
+        final PreparedProperties properties = prepareNodeProperties(node);
+        setProperties(arcadeNode, properties, node.getLabel(), node.getId());
+        arcadeNode.save();
+        return properties.estimatedBytes;
+    }
+
+    /**
+     * Updates the nodes of an existing label in place, keeping the RIDs of nodes which still exist, creating new
+     * nodes and deleting nodes which are no longer part of the workspace including their edges.
+     */
+    void updateNodes(final String label) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Updating nodes with label '" + label + "'...");
+        final ImportReport.Measurement measurement = report.startLabel("nodes", label);
+        final BatchCommitter committer = new BatchCommitter(db, settings, label);
+        final LabelFingerprints.Accumulator fingerprint = new LabelFingerprints.Accumulator();
+        long[] currentIds = new long[1024];
+        int currentCount = 0;
+        committer.begin();
+        try {
+            for (final Node node : graph.getNodes(label)) {
+                fingerprint.add(LabelFingerprints.hash(node));
+                if (currentCount == currentIds.length)
+                    currentIds = Arrays.copyOf(currentIds, currentIds.length << 1);
+                currentIds[currentCount++] = node.getId();
+                final RID id = nodeIdArcadeDBIdMap.get(node.getId());
+                committer.recordSaved(id != null ? updateNode(id, node) : createNode(node));
+            }
+            Arrays.sort(currentIds, 0, currentCount);
+            final long[] ids = currentIds;
+            final int count = currentCount;
+            deleteNodes(label, committer, nodeId -> Arrays.binarySearch(ids, 0, count, nodeId) < 0);
+            committer.finish();
+        } catch (RuntimeException e) {
+            committer.rollback();
+            throw e;
+        }
+        measurement.stop(committer.getTotalRecords(), committer.getTotalEstimatedBytes());
+        fingerprints.putNodeLabel(label, fingerprint);
+    }
+
+    void deleteNodes(final String label) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Deleting nodes with label '" + label + "'...");
+        final BatchCommitter committer = new BatchCommitter(db, settings, label);
+        committer.begin();
+        try {
+            deleteNodes(label, committer, nodeId -> true);
+            committer.finish();
+        } catch (RuntimeException e) {
+            committer.rollback();
+            throw e;
+        }
+        fingerprints.removeNodeLabel(label);
+    }
+
+    private void deleteNodes(final String label, final BatchCommitter committer, final LongPredicate filter) {
+        final Set<Integer> bucketIds = new HashSet<>();
+        for (final Bucket bucket : db.getSchema().getType(label).getBuckets(false))
+            bucketIds.add(bucket.getId());
+        long deletedCount = 0;
+        for (final long nodeId : nodeIdArcadeDBIdMap.getNodeIdsInBuckets(bucketIds)) {
+            if (!filter.test(nodeId))
+                continue;
+            db.lookupByRID(nodeIdArcadeDBIdMap.get(nodeId), false).asVertex().delete();
+            nodeIdArcadeDBIdMap.remove(nodeId);
+            committer.recordSaved(0);
+            deletedCount++;
+        }
+        if (deletedCount > 0 && LOGGER.isInfoEnabled())
+            LOGGER.info("Deleted " + deletedCount + " nodes with label '" + label + "'");
+    }
+
+    private void nodeLabelCompleted(final String label, final long count,
+                                    final LabelFingerprints.Accumulator fingerprint) {
+        fingerprints.putNodeLabel(label, fingerprint);
+        if (checkpoint != null)
+            checkpoint.nodeLabelCompleted(db, label, count, fingerprint.toString(), nodeIdArcadeDBIdMap);
+    }
+
+    /**
+     * Logs a summary of all properties which could not be written since the importer was created.
+     */
+    void logPropertyWarnings() {
+        propertyWarnings.logSummary();
+    }
+
+    private PropertyWritePlan getNodeWritePlan(final String label) {
+        return nodeWritePlans.computeIfAbsent(label, l -> PropertyWritePlan.create(
+                graph.getPropertyKeyTypesForNodeLabel(l), Node.IGNORED_FIELDS));
+    }
+
+    private PropertyWritePlan getEdgeWritePlan(final String label) {
+        return edgeWritePlans.computeIfAbsent(label, l -> PropertyWritePlan.create(
+                graph.getPropertyKeyTypesForEdgeLabel(l), Edge.IGNORED_FIELDS));
+    }
+
+    private PreparedProperties prepareNodeProperties(final Node node) {
+        return prepareProperties(getNodeWritePlan(node.getLabel()), node::getProperty, node.getLabel(),
+                                 node.getId());
+    }
+
+    private PreparedProperties prepareEdgeProperties(final Edge edge) {
+        return prepareProperties(getEdgeWritePlan(edge.getLabel()), edge::getProperty, edge.getLabel(),
+                                 edge.getId());
+    }
+
+    private PreparedProperties prepareProperties(final PropertyWritePlan plan,
+                                                 final Function<String, Object> getProperty, final String label,
+                                                 final long id) {
+        final Object[] values = new Object[plan.size()];
+        long estimatedBytes = 0;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = getProperty.apply(plan.getKey(i));
+            if (value == null)
+                continue;
+            try {
+                values[i] = plan.convert(i, value);
+                estimatedBytes += BatchCommitter.estimateSize(values[i]);
+            } catch (Exception e) {
+                propertyWarnings.add(label, plan.getKey(i), id, value, e);
+            }
+        }
+        return new PreparedProperties(plan, values, estimatedBytes);
+    }
+
+    private void setProperties(final MutableDocument document, final PreparedProperties properties,
+                               final String label, final long id) {
+        for (int i = 0; i < properties.values.length; i++) {
+            final Object value = properties.values[i];
+            if (value == null)
+                continue;
+            final String propertyKey = properties.plan.getKey(i);
+            try {
+                document.set(propertyKey, value);
+            } catch (Exception e) {
+                propertyWarnings.add(label, propertyKey, id, value, e);
+            }
+        }
+    }
+
+    /**
+     * The labels whose edges were stored as light edges since the importer was created.
+     */
+    Set<String> getLightEdgeLabels() {
+        return new TreeSet<>(lightEdgeLabels);
+    }
+
+    private void edgeLabelStarted(final String label) {
+        if (!settings.lightEdges || getEdgeWritePlan(label).size() > 0)
+            return;
+        if (checkpoint != null)
+            checkpoint.lightEdgesStarted();
+        lightEdgeLabels.add(label);
+        report.putDetail("lightEdgeLabels", new JSONArray(getLightEdgeLabels()));
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Edges with label '" + label + "' have no properties and are stored as light edges");
+    }
+
+    void createEdges(final String[] labels) {
+        if (settings.threads > 1) {
+            if (settings.presizeEdgeSegments && LOGGER.isInfoEnabled())
+                LOGGER.info("Edge segments are only presized by the single-threaded edge import");
+            createEdgesParallel(labels);
+            return;
+        }
+        if (settings.presizeEdgeSegments && labels.length > 0) {
+            countOutDegrees(labels);
+            defaultEdgeListSize = db.getEdgeListSize();
+            edgeListSize = defaultEdgeListSize;
+        }
+        try {
+            createEdgesSequential(labels);
+        } finally {
+            if (settings.presizeEdgeSegments && labels.length > 0) {
+                db.setEdgeListSize(defaultEdgeListSize);
+                nodeIdArcadeDBIdMap.clearDegrees();
+            }
+        }
+    }
+
+    /**
+     * Counts the outgoing edges of all labels per source vertex. A vertex shares its out edge segments among all
+     * labels, so the degree sums up all labels.
+     */
+    private void countOutDegrees(final String[] labels) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Counting out-degrees of vertices...");
+        final ImportReport.Measurement measurement = report.startPhase("degrees");
+        long count = 0;
+        for (final String label : labels)
+            for (final Edge edge : graph.getEdges(label)) {
+                nodeIdArcadeDBIdMap.incrementDegree(edge.getFromId());
+                count++;
+            }
+        measurement.stop(count, 0);
+        final int hubCount = nodeIdArcadeDBIdMap.countDegreesAbove(HUB_DEGREE);
+        final int maxDegree = nodeIdArcadeDBIdMap.getMaxDegree();
+        final JSONObject details = new JSONObject();
+        details.put("hubDegree", HUB_DEGREE);
+        details.put("hubVertices", hubCount);
+        details.put("maxOutDegree", maxDegree);
+        report.putDetail("edgeSegments", details);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Found " + hubCount + " vertices with more than " + HUB_DEGREE +
+                        " outgoing edges, the largest has " + maxDegree);
+    }
+
+    /**
+     * Sizes the first edge segment allocated for the vertex by its out-degree. Segments allocated later by ArcadeDB
+     * grow from the size of the previous one.
+     */
+    private void presizeEdgeSegment(final long nodeId) {
+        final int degree = nodeIdArcadeDBIdMap.getDegree(nodeId);
+        int size = defaultEdgeListSize;
+        if (degree > HUB_DEGREE)
+            size = Math.max(size, Math.min(MAX_EDGE_SEGMENT_SIZE, degree * EDGE_SEGMENT_BYTES_PER_EDGE));
+        if (size != edgeListSize) {
+            db.setEdgeListSize(size);
+            edgeListSize = size;
+        }
+    }
+
+    private void createEdgesSequential(final String[] labels) {
+        final PendingEdge[] buffer = new PendingEdge[settings.edgeSortBufferSize];
+        for (int i = 0; i < labels.length; i++) {
+            final String label = labels[i];
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Creating edges with label '" + label + "' (" + (i + 1) + "/" + labels.length + ")...");
+            edgeLabelStarted(label);
+            final ImportReport.Measurement measurement = report.startLabel("edges", label);
+            final BatchCommitter committer = new BatchCommitter(db, settings, label);
+            final SourceVertexCursor cursor = new SourceVertexCursor();
+            final LabelFingerprints.Accumulator fingerprint = new LabelFingerprints.Accumulator();
+            int count = 0;
+            committer.begin();
+            try {
+                if (settings.pipelineCapacity > 0) {
+                    // Read, resolve and convert the edges in background threads while this thread writes them
+                    final int[] pipelineCount = {0};
+                    new ImportPipeline<Edge, PendingEdge>("edges-" + label, settings.pipelineCapacity).run(
+                            graph.getEdges(label), edge -> {
+                                fingerprint.add(LabelFingerprints.hash(edge));
+                                return new PendingEdge(nodeIdArcadeDBIdMap.getPackedRID(edge.getFromId()), edge,
+                                                       prepareEdgeProperties(edge));
+                            }, pendingEdge -> {
+                                buffer[pipelineCount[0]++] = pendingEdge;
+                                if (pipelineCount[0] == buffer.length) {
+                                    createSortedEdges(committer, cursor, buffer, pipelineCount[0]);
+                                    pipelineCount[0] = 0;
+                                }
+                            });
+                    count = pipelineCount[0];
+                } else {
+                    for (final Edge edge : graph.getEdges(label)) {
+                        fingerprint.add(LabelFingerprints.hash(edge));
+                        buffer[count++] = new PendingEdge(nodeIdArcadeDBIdMap.getPackedRID(edge.getFromId()), edge,
+                                                          null);
+                        if (count == buffer.length) {
+                            createSortedEdges(committer, cursor, buffer, count);
+                            count = 0;
+                        }
+                    }
+                }
+                createSortedEdges(committer, cursor, buffer, count);
+                committer.finish();
+            } catch (RuntimeException e) {
+                committer.rollback();
+                throw e;
+            }
+            measurement.stop(committer.getTotalRecords(), committer.getTotalEstimatedBytes());
+            fingerprints.putEdgeLabel(label, fingerprint);
+            if (checkpoint != null)
+                checkpoint.edgeLabelCompleted(label, committer.getTotalRecords(), fingerprint.toString());
+        }
+    }
+
+    /**
+     * Deletes all edges with the label. Each pass starts a fresh iteration, as records must not be deleted from the
+     * buckets the current iterator is reading.
+     */
+    void deleteEdges(final String label) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Deleting edges with label '" + label + "'...");
+        final BatchCommitter committer = new BatchCommitter(db, settings, label);
+        final List<RID> pass = new ArrayList<>();
+        long deletedCount = 0;
+        try {
+            do {
+                pass.clear();
+                final Iterator<Record> iterator = db.iterateType(label, false);
+                while (iterator.hasNext() && pass.size() < settings.batchSize)
+                    pass.add(iterator.next().getIdentity());
+                committer.begin();
+                for (final RID id : pass) {
+                    db.lookupByRID(id, false).asEdge().delete();
+                    committer.recordWritten(0);
+                }
+                committer.commit();
+                deletedCount += pass.size();
+            } while (!pass.isEmpty());
+        } catch (RuntimeException e) {
+            committer.rollback();
+            throw e;
+        }
+        fingerprints.removeEdgeLabel(label);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Deleted " + deletedCount + " edges with label '" + label + "'");
+    }
+
+    /**
+     * Creates the buffered edges ordered by the bucket and position of their source vertex, so each source vertex
+     * page is touched once per buffer instead of once per edge.
+     */
+    private void createSortedEdges(final BatchCommitter committer, final SourceVertexCursor cursor,
+                                   final PendingEdge[] buffer, final int count) {
+        Arrays.sort(buffer, 0, count);
+        long previousFromRID = -1;
+        for (int i = 0; i < count; i++) {
+            if (settings.presizeEdgeSegments && buffer[i].fromRID != previousFromRID) {
+                presizeEdgeSegment(buffer[i].edge.getFromId());
+                previousFromRID = buffer[i].fromRID;
+            }
+            if (committer.recordSaved(createEdge(cursor, buffer[i])))
+                cursor.reset();
+            buffer[i] = null;
+        }
+    }
+
+    private long createEdge(final SourceVertexCursor cursor, final PendingEdge pendingEdge) {
+        final Edge edge = pendingEdge.edge;
+        final Vertex fromNode = cursor.get(pendingEdge.fromRID);
+        final RID toNodeId = nodeIdArcadeDBIdMap.get(edge.getToId());
+        if (lightEdgeLabels.contains(edge.getLabel())) {
+            fromNode.newLightEdge(edge.getLabel(), toNodeId, false);
+            return 0;
+        }
+        final MutableEdge arcadeEdge = fromNode.newEdge(edge.getLabel(), toNodeId, false).modify();
+        final PreparedProperties properties = pendingEdge.properties != null ? pendingEdge.properties :
+                                              prepareEdgeProperties(edge);
+        setProperties(arcadeEdge, properties, edge.getLabel(), edge.getId());
+        arcadeEdge.save();
+        return properties.estimatedBytes;
+    }
+
+    private void createNodesParallel(final String[] labels) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Creating nodes of " + labels.length + " labels using " + settings.threads + " threads...");
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(settings.threads, labels.length)));
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            final String label = labels[i];
+            final int labelIndex = i + 1;
+            futures.add(executor.submit(() -> {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Creating nodes with label '" + label + "' (" + labelIndex + "/" + labels.length +
+                                ")...");
+                final ImportReport.Measurement measurement = report.startLabel("nodes", label);
+                final BatchCommitter committer = new BatchCommitter(db, settings, label);
+                final LabelFingerprints.Accumulator fingerprint = new LabelFingerprints.Accumulator();
+                List<Node> batch = new ArrayList<>(settings.batchSize);
+                for (final Node node : graph.getNodes(label)) {
+                    fingerprint.add(LabelFingerprints.hash(node));
+                    batch.add(node);
+                    if (batch.size() >= settings.batchSize) {
+                        writeNodeBatch(committer, batch);
+                        batch = new ArrayList<>(settings.batchSize);
+                    }
+                }
+                writeNodeBatch(committer, batch);
+                committer.logSummary();
+                measurement.stop(committer.getTotalRecords(), committer.getTotalEstimatedBytes());
+                nodeLabelCompleted(label, committer.getTotalRecords(), fingerprint);
+            }));
+        }
+        awaitAll(executor, futures);
+    }
+
+    private void writeNodeBatch(final BatchCommitter committer, final List<Node> batch) {
+        writeInTransactions(committer, batch, this::createNode, () -> {
+        });
+    }
+
+    /**
+     * Writes the records in transactions which are committed by the size and byte rules of the committer, so the
+     * parallel import commits like the sequential one. If ArcadeDB reports a concurrent modification, the records
+     * since the last commit are written again.
+     */
+    private static <T> void writeInTransactions(final BatchCommitter committer, final List<T> records,
+                                                final ToLongFunction<T> writer, final Runnable afterTransaction) {
+        int start = 0;
+        int attempt = 1;
+        while (start < records.size()) {
+            committer.begin();
+            int end = start;
+            try {
+                do {
+                    committer.recordWritten(writer.applyAsLong(records.get(end++)));
+                } while (end < records.size() && !committer.isBatchFull());
+                committer.commit();
+                start = end;
+                attempt = 1;
+            } catch (NeedRetryException e) {
+                committer.rollback();
+                if (attempt++ >= MAX_BATCH_RETRIES)
+                    throw e;
+            } catch (RuntimeException e) {
+                committer.rollback();
+                throw e;
+            } finally {
+                afterTransaction.run();
+            }
+        }
+    }
+
+    private void createEdgesParallel(final String[] labels) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Creating edges of " + labels.length + " labels using " + settings.threads + " threads...");
+        final EdgeWriter[] writers = new EdgeWriter[settings.threads];
+        final ExecutorService writerExecutor = Executors.newFixedThreadPool(writers.length);
+        final List<Future<?>> writerFutures = new ArrayList<>();
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new EdgeWriter(new BatchCommitter(db, settings, "edges#" + i));
+            writerFutures.add(writerExecutor.submit(writers[i]));
+        }
+        final ExecutorService readerExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(settings.threads, labels.length)));
+        final List<Future<?>> readerFutures = new ArrayList<>();
+        final Map<String, Long> routedCounts = new ConcurrentHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            final String label = labels[i];
+            final int labelIndex = i + 1;
+            readerFutures.add(readerExecutor.submit(() -> {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Creating edges with label '" + label + "' (" + labelIndex + "/" + labels.length +
+                                ")...");
+                routedCounts.put(label, routeEdges(label, writers));
+            }));
+        }
+        try {
+            awaitAll(readerExecutor, readerFutures);
+        } finally {
+            for (final EdgeWriter writer : writers)
+                writer.close();
+            awaitAll(writerExecutor, writerFutures);
+        }
+        // Writers commit batches of several labels together, so labels can only be checkpointed once all finished
+        if (checkpoint != null)
+            for (final Map.Entry<String, Long> entry : routedCounts.entrySet())
+                checkpoint.edgeLabelCompleted(entry.getKey(), entry.getValue(),
+                                              fingerprints.getEdgeLabel(entry.getKey()));
+    }
+
+    /**
+     * Distributes the edges of the label to the writers. The measurement of the label covers reading and routing
+     * the edges, as the writers commit batches of several labels together. Returns the number of routed edges.
+     */
+    private long routeEdges(final String label, final EdgeWriter[] writers) {
+        edgeLabelStarted(label);
+        final ImportReport.Measurement measurement = report.startLabel("edges", label);
+        long count = 0;
+        @SuppressWarnings("unchecked") final List<PendingEdge>[] batches = new List[writers.length];
+        for (int i = 0; i < batches.length; i++)
+            batches[i] = new ArrayList<>();
+        final LabelFingerprints.Accumulator fingerprint = new LabelFingerprints.Accumulator();
+        for (final Edge edge : graph.getEdges(label)) {
+            fingerprint.add(LabelFingerprints.hash(edge));
+            final long fromRID = nodeIdArcadeDBIdMap.getPackedRID(edge.getFromId());
+            final int partition = Math.floorMod(NodeIdRIDMap.getBucketId(fromRID), writers.length);
+            batches[partition].add(new PendingEdge(fromRID, edge, null));
+            count++;
+            if (batches[partition].size() >= settings.batchSize) {
+                writers[partition].submit(batches[partition]);
+                batches[partition] = new ArrayList<>();
+            }
+        }
+        for (int i = 0; i < batches.length; i++)
+            if (batches[i].size() > 0)
+                writers[i].submit(batches[i]);
+        measurement.stop(count, 0);
+        fingerprints.putEdgeLabel(label, fingerprint);
+        return count;
+    }
+
+    private static void awaitAll(final ExecutorService executor, final List<Future<?>> futures) {
+        try {
+            for (final Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during parallel import", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Parallel import failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes all edge batches of a single source bucket partition in its own transactions. Transactions are retried
+     * if ArcadeDB reports a concurrent modification, e.g. of a shared edge bucket page.
+     */
+    private final class EdgeWriter implements Runnable {
+        private final List<PendingEdge> endOfInput = new ArrayList<>();
+        private final BlockingQueue<List<PendingEdge>> queue = new ArrayBlockingQueue<>(WRITER_QUEUE_CAPACITY);
+        private final BatchCommitter committer;
+        private final SourceVertexCursor cursor = new SourceVertexCursor();
+        private volatile boolean failed;
+
+        EdgeWriter(final BatchCommitter committer) {
+            this.committer = committer;
+        }
+
+        void submit(final List<PendingEdge> batch) {
+            if (failed)
+                throw new IllegalStateException("Edge writer failed, aborting edge import");
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during parallel edge import", e);
+            }
+        }
+
+        void close() {
+            if (!failed)
+                submit(endOfInput);
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<PendingEdge> batch;
+                while ((batch = queue.take()) != endOfInput) {
+                    Collections.sort(batch);
+                    writeBatch(batch);
+                }
+                committer.logSummary();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failed = true;
+                queue.clear();
+                throw e;
+            }
+        }
+
+        private void writeBatch(final List<PendingEdge> batch) {
+            writeInTransactions(committer, batch, edge -> createEdge(cursor, edge), cursor::reset);
+        }
+    }
+
+    /**
+     * Converted property values of a node or edge in the order of the write plan, ready to be written.
+     */
+    private static final class PreparedProperties {
+        final PropertyWritePlan plan;
+        final Object[] values;
+        final long estimatedBytes;
+
+        PreparedProperties(final PropertyWritePlan plan, final Object[] values, final long estimatedBytes) {
+            this.plan = plan;
+            this.values = values;
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+
+    private static final class PreparedNode {
+        final Node node;
+        final PreparedProperties properties;
+
+        PreparedNode(final Node node, final PreparedProperties properties) {
+            this.node = node;
+            this.properties = properties;
+        }
+    }
+
+    private static final class PendingEdge implements Comparable<PendingEdge> {
+        final long fromRID;
+        final Edge edge;
+        final PreparedProperties properties;
+
+        PendingEdge(final long fromRID, final Edge edge, final PreparedProperties properties) {
+            this.fromRID = fromRID;
+            this.edge = edge;
+            this.properties = properties;
+        }
+
+        @Override
+        public int compareTo(final PendingEdge other) {
+            return Long.compare(fromRID, other.fromRID);
+        }
+    }
+
+    /**
+     * Keeps the most recently used source vertex, so consecutive edges of the same source only look it up once. The
+     * vertex must be reset whenever the surrounding transaction ends.
+     */
+    private final class SourceVertexCursor {
+        private long fromRID = -1;
+        private Vertex vertex;
+
+        Vertex get(final long fromRID) {
+            if (vertex == null || this.fromRID != fromRID) {
+                vertex = db.lookupByRID(nodeIdArcadeDBIdMap.toRID(fromRID), false).asVertex(false);
+                this.fromRID = fromRID;
+            }
+            return vertex;
+        }
+
+        void reset() {
+            vertex = null;
+            fromRID = -1;
+        }
+    }
+}
@@ -4,11 +4,27 @@ import org.apache.commons.codec.digest.DigestUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 
 final class HashUtils {
+    private static final int CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
     private HashUtils() {
     }
 
@@ -22,4 +38,144 @@ final class HashUtils {
         final BasicFileAttributes attributes = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
         return DigestUtils.md5Hex(attributes.lastModifiedTime() + "__" + attributes.size());
     }
+
+    /**
+     * Content fingerprint of a file as a tree hash: the file is memory-mapped in fixed size chunks which are hashed
+     * in parallel using XXH64, and the chunk hashes are hashed again to form the root. The whole file is read unless
+     * a cache file is given: the chunk hashes are then stored together with the file size and modification time and
+     * reused without reading the file as long as both are unchanged. The file system only tracks the modification
+     * time of the whole file, so the cache is validated for the whole file and any change reads all chunks again. A
+     * file rewritten with the same size and modification time keeps its cached hash, so the cache must only be used
+     * if the caller opted in.
+     */
+    static String getContentHashFromFile(final String filePath, final Path cacheFilePath) throws IOException {
+        final Path path = Paths.get(filePath);
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final String metadata = attributes.size() + "__" + attributes.lastModifiedTime().toMillis() + "__" +
+                                CHUNK_SIZE;
+        long[] chunkHashes = cacheFilePath != null ? loadCachedChunkHashes(cacheFilePath, metadata) : null;
+        if (chunkHashes == null) {
+            chunkHashes = getChunkHashes(path, attributes.size());
+            if (cacheFilePath != null)
+                storeCachedChunkHashes(cacheFilePath, metadata, chunkHashes);
+        }
+        final ByteBuffer rootBuffer = ByteBuffer.allocate((chunkHashes.length + 1) * Long.BYTES).order(
+                ByteOrder.LITTLE_ENDIAN);
+        rootBuffer.putLong(attributes.size());
+        for (final long chunkHash : chunkHashes)
+            rootBuffer.putLong(chunkHash);
+        rootBuffer.flip();
+        return String.format("xxh64-tree:%016x", xxHash64(rootBuffer, 0));
+    }
+
+    private static long[] getChunkHashes(final Path path, final long size) throws IOException {
+        final int chunkCount = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final long[] chunkHashes = new long[chunkCount];
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            IntStream.range(0, chunkCount).parallel().forEach(i -> {
+                final long offset = (long) i * CHUNK_SIZE;
+                try {
+                    final ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                                                         Math.min(CHUNK_SIZE, size - offset));
+                    chunkHashes[i] = xxHash64(chunk, i);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to read chunk " + i + " of file '" + path + "'", e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw e;
+        }
+        return chunkHashes;
+    }
+
+    private static long[] loadCachedChunkHashes(final Path cacheFilePath, final String metadata) throws IOException {
+        if (!Files.exists(cacheFilePath))
+            return null;
+        final List<String> lines = Files.readAllLines(cacheFilePath, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !metadata.equals(lines.get(0)))
+            return null;
+        final long[] chunkHashes = new long[lines.size() - 1];
+        for (int i = 0; i < chunkHashes.length; i++)
+            chunkHashes[i] = Long.parseUnsignedLong(lines.get(i + 1), 16);
+        return chunkHashes;
+    }
+
+    private static void storeCachedChunkHashes(final Path cacheFilePath, final String metadata,
+                                               final long[] chunkHashes) throws IOException {
+        if (!Files.exists(cacheFilePath.getParent()))
+            return;
+        final List<String> lines = new ArrayList<>(chunkHashes.length + 1);
+        lines.add(metadata);
+        for (final long chunkHash : chunkHashes)
+            lines.add(Long.toHexString(chunkHash));
+        Files.write(cacheFilePath, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">XXH64</a> of the remaining bytes of
+     * the buffer.
+     */
+    static long xxHash64(final ByteBuffer buffer, final long seed) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        final int end = buffer.limit();
+        final int length = end - position;
+        long hash;
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            final int limit = end - 32;
+            do {
+                v1 = round(v1, buffer.getLong(position));
+                v2 = round(v2, buffer.getLong(position + 8));
+                v3 = round(v3, buffer.getLong(position + 16));
+                v4 = round(v4, buffer.getLong(position + 24));
+                position += 32;
+            } while (position <= limit);
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) +
+                   Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else
+            hash = seed + PRIME64_5;
+        hash += length;
+        while (position + 8 <= end) {
+            hash ^= round(0, buffer.getLong(position));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            position += 8;
+        }
+        if (position + 4 <= end) {
+            hash ^= (buffer.getInt(position) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            position += 4;
+        }
+        while (position < end) {
+            hash ^= (buffer.get(position) & 0xFF) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            position++;
+        }
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long accumulator, final long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+    private static long mergeRound(long accumulator, final long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME64_1 + PRIME64_4;
+    }
 }
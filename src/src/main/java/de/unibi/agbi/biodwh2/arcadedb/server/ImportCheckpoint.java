@@ -0,0 +1,214 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.engine.Bucket;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Progress of an import which can be resumed after the process died. Every completed node or edge label is recorded
+ * with its record count and fingerprint. The node id mapping entries of a completed node label are appended to a
+ * log before the label is recorded, so the mapping of all recorded labels can be restored on resume. Incremental
+ * updates are not checkpointed but only marked as running, so an interrupted update is replaced by a full import.
+ */
+final class ImportCheckpoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportCheckpoint.class);
+    static final String FILE_NAME = "import-checkpoint.json";
+    static final String NODE_ID_MAPPING_LOG_FILE_NAME = "node-id-mapping.log";
+    static final String UPDATE_MARKER_FILE_NAME = "update-in-progress.json";
+
+    private final Path directory;
+    private final String workspaceHash;
+    private final Map<String, LabelState> nodeLabels = new TreeMap<>();
+    private final Map<String, LabelState> edgeLabels = new TreeMap<>();
+    private boolean lightEdgesCreated;
+
+    private ImportCheckpoint(final Path directory, final String workspaceHash) {
+        this.directory = directory;
+        this.workspaceHash = workspaceHash;
+    }
+
+    static ImportCheckpoint create(final Path directory, final String workspaceHash) throws IOException {
+        Files.deleteIfExists(directory.resolve(NODE_ID_MAPPING_LOG_FILE_NAME));
+        final ImportCheckpoint checkpoint = new ImportCheckpoint(directory, workspaceHash);
+        checkpoint.save();
+        return checkpoint;
+    }
+
+    static boolean exists(final Path directory) {
+        return Files.exists(directory.resolve(FILE_NAME));
+    }
+
+    /**
+     * Marks an incremental update as running. Once the update started modifying the database, the stored node id
+     * mapping and label fingerprints no longer describe it, so the marker is only removed after both were stored
+     * again and an interrupted update is detected by the marker remaining.
+     */
+    static void markUpdateStarted(final Path directory) throws IOException {
+        final JSONObject json = new JSONObject();
+        json.put("started", System.currentTimeMillis());
+        Files.write(directory.resolve(UPDATE_MARKER_FILE_NAME), json.toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static boolean isUpdateInterrupted(final Path directory) {
+        return Files.exists(directory.resolve(UPDATE_MARKER_FILE_NAME));
+    }
+
+    static void markUpdateFinished(final Path directory) throws IOException {
+        Files.deleteIfExists(directory.resolve(UPDATE_MARKER_FILE_NAME));
+    }
+
+    static ImportCheckpoint load(final Path directory) throws IOException {
+        final JSONObject json = new JSONObject(
+                new String(Files.readAllBytes(directory.resolve(FILE_NAME)), StandardCharsets.UTF_8));
+        final ImportCheckpoint checkpoint = new ImportCheckpoint(directory, json.getString("workspaceHash"));
+        loadLabels(json.getJSONObject("nodes"), checkpoint.nodeLabels);
+        loadLabels(json.getJSONObject("edges"), checkpoint.edgeLabels);
+        checkpoint.lightEdgesCreated = json.optBoolean("lightEdgesCreated");
+        return checkpoint;
+    }
+
+    private static void loadLabels(final JSONObject json, final Map<String, LabelState> labels) {
+        for (final String label : json.keySet()) {
+            final JSONObject state = json.getJSONObject(label);
+            labels.put(label, new LabelState(state.getLong("count"), state.getString("fingerprint")));
+        }
+    }
+
+    String getWorkspaceHash() {
+        return workspaceHash;
+    }
+
+    /**
+     * Whether light edges may have been written. Light edges have no records, so the edges of an interrupted label
+     * cannot be discarded and the import cannot be resumed.
+     */
+    synchronized boolean hasLightEdgesCreated() {
+        return lightEdgesCreated;
+    }
+
+    synchronized void lightEdgesStarted() {
+        if (lightEdgesCreated)
+            return;
+        lightEdgesCreated = true;
+        try {
+            save();
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to store import checkpoint before creating light edges", e);
+        }
+    }
+
+    synchronized Long getNodeLabelCount(final String label) {
+        final LabelState state = nodeLabels.get(label);
+        return state != null ? state.count : null;
+    }
+
+    synchronized Long getEdgeLabelCount(final String label) {
+        final LabelState state = edgeLabels.get(label);
+        return state != null ? state.count : null;
+    }
+
+    synchronized void removeNodeLabel(final String label) throws IOException {
+        if (nodeLabels.remove(label) != null)
+            save();
+    }
+
+    synchronized void removeEdgeLabel(final String label) throws IOException {
+        if (edgeLabels.remove(label) != null)
+            save();
+    }
+
+    /**
+     * Restores the fingerprints of all recorded labels.
+     */
+    synchronized void restoreFingerprints(final LabelFingerprints fingerprints) {
+        for (final Map.Entry<String, LabelState> entry : nodeLabels.entrySet())
+            fingerprints.putNodeLabel(entry.getKey(), entry.getValue().fingerprint);
+        for (final Map.Entry<String, LabelState> entry : edgeLabels.entrySet())
+            fingerprints.putEdgeLabel(entry.getKey(), entry.getValue().fingerprint);
+    }
+
+    NodeIdRIDMap loadNodeIdMapping(final Database db, final long expectedSize) throws IOException {
+        return NodeIdRIDMap.loadEntries(db, directory.resolve(NODE_ID_MAPPING_LOG_FILE_NAME), expectedSize);
+    }
+
+    synchronized void nodeLabelCompleted(final Database db, final String label, final long count,
+                                         final String fingerprint, final NodeIdRIDMap nodeIdArcadeDBIdMap) {
+        final Set<Integer> bucketIds = new HashSet<>();
+        for (final Bucket bucket : db.getSchema().getType(label).getBuckets(false))
+            bucketIds.add(bucket.getId());
+        try (final FileOutputStream fileStream = new FileOutputStream(
+                directory.resolve(NODE_ID_MAPPING_LOG_FILE_NAME).toFile(), true);
+             final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(fileStream, 1 << 16))) {
+            nodeIdArcadeDBIdMap.appendEntries(stream, bucketIds);
+            stream.flush();
+            fileStream.getFD().sync();
+            nodeLabels.put(label, new LabelState(count, fingerprint));
+            save();
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to store import checkpoint for nodes with label '" + label + "'", e);
+        }
+    }
+
+    synchronized void edgeLabelCompleted(final String label, final long count, final String fingerprint) {
+        edgeLabels.put(label, new LabelState(count, fingerprint));
+        try {
+            save();
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to store import checkpoint for edges with label '" + label + "'", e);
+        }
+    }
+
+    private void save() throws IOException {
+        final JSONObject json = new JSONObject();
+        json.put("workspaceHash", workspaceHash);
+        json.put("nodes", toJSON(nodeLabels));
+        json.put("edges", toJSON(edgeLabels));
+        json.put("lightEdgesCreated", lightEdgesCreated);
+        // Replace the checkpoint atomically, so a crash while saving keeps the previous one
+        final Path temporaryFilePath = directory.resolve(FILE_NAME + ".tmp");
+        Files.write(temporaryFilePath, json.toString(2).getBytes(StandardCharsets.UTF_8));
+        Files.move(temporaryFilePath, directory.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static JSONObject toJSON(final Map<String, LabelState> labels) {
+        final JSONObject json = new JSONObject();
+        for (final Map.Entry<String, LabelState> entry : labels.entrySet()) {
+            final JSONObject state = new JSONObject();
+            state.put("count", entry.getValue().count);
+            state.put("fingerprint", entry.getValue().fingerprint);
+            json.put(entry.getKey(), state);
+        }
+        return json;
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(directory.resolve(FILE_NAME));
+        Files.deleteIfExists(directory.resolve(NODE_ID_MAPPING_LOG_FILE_NAME));
+    }
+
+    private static final class LabelState {
+        final long count;
+        final String fingerprint;
+
+        LabelState(final long count, final String fingerprint) {
+            this.count = count;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
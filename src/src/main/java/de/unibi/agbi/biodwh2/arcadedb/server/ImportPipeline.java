@@ -0,0 +1,141 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams records from a reader thread through a converter thread to the calling thread, which writes them. The
+ * stages exchange fixed size chunks through bounded queues, so at most the configured capacity of records is in
+ * flight and a slow writer holds back the reader instead of letting the whole label pile up in memory. Stages are
+ * stopped through a flag rather than interrupts, as interrupting a thread reading from the graph would close its
+ * file channel.
+ */
+final class ImportPipeline<S, T> {
+    private static final int CHUNK_SIZE = 1024;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final List<Object> END_OF_INPUT = new ArrayList<>(0);
+
+    private final String name;
+    private final BlockingQueue<List<Object>> readQueue;
+    private final BlockingQueue<List<Object>> convertedQueue;
+    private volatile boolean aborted;
+    private volatile Throwable failure;
+
+    ImportPipeline(final String name, final int capacity) {
+        this.name = name;
+        // The capacity is shared by the chunks of both queues
+        final int queueCapacity = Math.max(1, capacity / CHUNK_SIZE / 2);
+        readQueue = new ArrayBlockingQueue<>(queueCapacity);
+        convertedQueue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    void run(final Iterable<S> source, final Function<S, T> converter, final Consumer<T> writer) {
+        final Thread readerThread = new Thread(() -> read(source), name + "-reader");
+        final Thread converterThread = new Thread(() -> convert(converter), name + "-converter");
+        readerThread.setDaemon(true);
+        converterThread.setDaemon(true);
+        readerThread.start();
+        converterThread.start();
+        try {
+            List<Object> chunk;
+            while ((chunk = take(convertedQueue)) != END_OF_INPUT)
+                for (final Object element : chunk)
+                    writer.accept((T) element);
+        } finally {
+            aborted = true;
+            join(readerThread);
+            join(converterThread);
+        }
+    }
+
+    private void read(final Iterable<S> source) {
+        try {
+            List<Object> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (final S element : source) {
+                chunk.add(element);
+                if (chunk.size() == CHUNK_SIZE) {
+                    put(readQueue, chunk);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (chunk.size() > 0)
+                put(readQueue, chunk);
+            put(readQueue, END_OF_INPUT);
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void convert(final Function<S, T> converter) {
+        try {
+            List<Object> chunk;
+            while ((chunk = take(readQueue)) != END_OF_INPUT) {
+                for (int i = 0; i < chunk.size(); i++)
+                    chunk.set(i, converter.apply((S) chunk.get(i)));
+                put(convertedQueue, chunk);
+            }
+            put(convertedQueue, END_OF_INPUT);
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Records the first failure of a stage, including errors such as an {@link OutOfMemoryError}, as the writer would
+     * otherwise wait forever for a stage which died.
+     */
+    private void fail(final Throwable e) {
+        if (failure == null)
+            failure = e;
+        aborted = true;
+    }
+
+    private void put(final BlockingQueue<List<Object>> queue, final List<Object> chunk) {
+        try {
+            while (!queue.offer(chunk, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                checkAborted();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted in import pipeline '" + name + "'", e);
+        }
+    }
+
+    private List<Object> take(final BlockingQueue<List<Object>> queue) {
+        try {
+            List<Object> chunk;
+            while ((chunk = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) == null)
+                checkAborted();
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted in import pipeline '" + name + "'", e);
+        }
+    }
+
+    private void checkAborted() {
+        final Throwable cause = failure;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        if (cause != null)
+            throw new IllegalStateException("Import pipeline '" + name + "' failed", cause);
+        if (aborted)
+            throw new IllegalStateException("Import pipeline '" + name + "' was aborted");
+    }
+
+    private static void join(final Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
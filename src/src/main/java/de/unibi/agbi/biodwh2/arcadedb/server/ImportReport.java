@@ -0,0 +1,203 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.engine.PageManager;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings and resource usage of an import run. Every phase (schema, nodes, edges, indices) and every label within a
+ * phase is measured from start to stop. Heap, off-heap, GC and page cache figures are process-wide, so measurements
+ * of labels imported concurrently overlap. The report can be rendered as JSON while the import is still running.
+ */
+final class ImportReport {
+    static final String FILE_NAME = "import-report.json";
+
+    private static volatile ImportReport current;
+
+    private final DatabaseInternal db;
+    private final String mode;
+    private final long startTimeMillis = System.currentTimeMillis();
+    private final List<Measurement> phases = new ArrayList<>();
+    private final List<Measurement> labels = new ArrayList<>();
+    private final Map<String, Object> details = new LinkedHashMap<>();
+    private volatile boolean finished;
+
+    ImportReport(final DatabaseInternal db, final String mode) {
+        this.db = db;
+        this.mode = mode;
+    }
+
+    /**
+     * The report of the import currently running in this process or the last one which finished.
+     */
+    static ImportReport getCurrent() {
+        return current;
+    }
+
+    static void setCurrent(final ImportReport report) {
+        current = report;
+    }
+
+    Measurement startPhase(final String phase) {
+        final Measurement measurement = new Measurement(phase, null, null);
+        synchronized (this) {
+            phases.add(measurement);
+        }
+        return measurement;
+    }
+
+    Measurement startLabel(final String phase, final String label) {
+        final Measurement measurement = new Measurement(phase, label, findRunningPhase(phase));
+        synchronized (this) {
+            labels.add(measurement);
+        }
+        return measurement;
+    }
+
+    private synchronized Measurement findRunningPhase(final String phase) {
+        for (int i = phases.size() - 1; i >= 0; i--)
+            if (phases.get(i).phase.equals(phase) && phases.get(i).end == null)
+                return phases.get(i);
+        return null;
+    }
+
+    /**
+     * Adds a detail of the import which is not covered by the measurements, e.g. how edges were stored.
+     */
+    synchronized void putDetail(final String key, final Object value) {
+        details.put(key, value);
+    }
+
+    void finish() {
+        finished = true;
+    }
+
+    synchronized JSONObject toJSON() {
+        final Snapshot now = takeSnapshot();
+        final JSONObject json = new JSONObject();
+        json.put("mode", mode);
+        json.put("startTime", startTimeMillis);
+        json.put("finished", finished);
+        final JSONArray phasesJson = new JSONArray();
+        for (final Measurement measurement : phases)
+            phasesJson.put(measurement.toJSON(now));
+        json.put("phases", phasesJson);
+        final JSONArray labelsJson = new JSONArray();
+        for (final Measurement measurement : labels)
+            labelsJson.put(measurement.toJSON(now));
+        json.put("labels", labelsJson);
+        if (!details.isEmpty()) {
+            final JSONObject detailsJson = new JSONObject();
+            for (final Map.Entry<String, Object> entry : details.entrySet())
+                detailsJson.put(entry.getKey(), entry.getValue());
+            json.put("details", detailsJson);
+        }
+        return json;
+    }
+
+    void save(final Path filePath) throws IOException {
+        Files.write(filePath, toJSON().toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Snapshot takeSnapshot() {
+        final Snapshot snapshot = new Snapshot();
+        snapshot.nanos = System.nanoTime();
+        snapshot.heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+            snapshot.offHeapUsed += pool.getMemoryUsed();
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            snapshot.gcCount += Math.max(0, collector.getCollectionCount());
+            snapshot.gcTimeMillis += Math.max(0, collector.getCollectionTime());
+        }
+        if (db != null) {
+            final PageManager.PPageManagerStats stats = db.getPageManager().getStats();
+            snapshot.pageCacheHits = stats.cacheHits;
+            snapshot.pageCacheMisses = stats.cacheMiss;
+            snapshot.pagesWrittenBytes = stats.pagesWrittenSize;
+        }
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+        long nanos;
+        long heapUsed;
+        long offHeapUsed;
+        long gcCount;
+        long gcTimeMillis;
+        long pageCacheHits;
+        long pageCacheMisses;
+        long pagesWrittenBytes;
+    }
+
+    final class Measurement {
+        private final String phase;
+        private final String label;
+        private final Measurement parent;
+        private final Snapshot start;
+        private volatile Snapshot end;
+        private long records;
+        private long estimatedBytes;
+
+        private Measurement(final String phase, final String label, final Measurement parent) {
+            this.phase = phase;
+            this.label = label;
+            this.parent = parent;
+            start = takeSnapshot();
+        }
+
+        synchronized void addRecords(final long records, final long estimatedBytes) {
+            this.records += records;
+            this.estimatedBytes += estimatedBytes;
+            if (parent != null)
+                parent.addRecords(records, estimatedBytes);
+        }
+
+        void stop() {
+            end = takeSnapshot();
+        }
+
+        void stop(final long records, final long estimatedBytes) {
+            addRecords(records, estimatedBytes);
+            stop();
+        }
+
+        private synchronized JSONObject toJSON(final Snapshot now) {
+            final Snapshot last = end != null ? end : now;
+            final double seconds = Math.max(last.nanos - start.nanos, 1) / 1e9;
+            final long cacheHits = last.pageCacheHits - start.pageCacheHits;
+            final long cacheAccesses = cacheHits + last.pageCacheMisses - start.pageCacheMisses;
+            final JSONObject json = new JSONObject();
+            json.put("phase", phase);
+            if (label != null)
+                json.put("label", label);
+            json.put("running", end == null);
+            json.put("seconds", seconds);
+            json.put("records", records);
+            json.put("recordsPerSecond", records / seconds);
+            json.put("estimatedBytes", estimatedBytes);
+            json.put("bytesWritten", last.pagesWrittenBytes - start.pagesWrittenBytes);
+            json.put("heapUsedBytes", last.heapUsed);
+            json.put("heapUsedDeltaBytes", last.heapUsed - start.heapUsed);
+            json.put("offHeapUsedBytes", last.offHeapUsed);
+            json.put("gcCount", last.gcCount - start.gcCount);
+            json.put("gcTimeMillis", last.gcTimeMillis - start.gcTimeMillis);
+            json.put("pageCacheHits", cacheHits);
+            json.put("pageCacheMisses", cacheAccesses - cacheHits);
+            json.put("pageCacheHitRatio", cacheAccesses > 0 ? (double) cacheHits / cacheAccesses : 1.0);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.server.ArcadeDBServer;
+import com.arcadedb.server.ServerPlugin;
+import com.arcadedb.server.http.HttpServer;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.PathHandler;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Serves the import report under {@value #PATH}: the live report while an import is running in this process,
+ * otherwise the report stored by the last import of the database. Requires basic authentication of a user with access
+ * to the BioDWH2 database.
+ */
+public class ImportReportPlugin implements ServerPlugin {
+    static final String NAME = "BioDWH2ImportReport";
+    static final String PATH = "/api/v1/biodwh2/import-report";
+
+    private ArcadeDBServer server;
+    private Path reportFilePath;
+
+    @Override
+    public void configure(final ArcadeDBServer arcadeDBServer, final ContextConfiguration configuration) {
+        server = arcadeDBServer;
+        reportFilePath = Paths.get(configuration.getValueAsString(GlobalConfiguration.SERVER_ROOT_PATH),
+                                   ImportReport.FILE_NAME);
+    }
+
+    @Override
+    public void startService() {
+    }
+
+    @Override
+    public void registerAPI(final HttpServer httpServer, final PathHandler routes) {
+        routes.addExactPath(PATH, this::handleRequest);
+    }
+
+    private void handleRequest(final HttpServerExchange exchange) throws IOException {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this::handleRequest);
+            return;
+        }
+        if (!Methods.GET.equals(exchange.getRequestMethod())) {
+            exchange.setStatusCode(StatusCodes.METHOD_NOT_ALLOWED);
+            return;
+        }
+        if (!BasicAuthentication.authenticate(server, exchange, ArcadeDBService.DATABASE_NAME))
+            return;
+        final ImportReport report = ImportReport.getCurrent();
+        final String json;
+        if (report != null)
+            json = report.toJSON().toString(2);
+        else if (Files.exists(reportFilePath))
+            json = new String(Files.readAllBytes(reportFilePath), StandardCharsets.UTF_8);
+        else {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            return;
+        }
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send(json, StandardCharsets.UTF_8);
+    }
+}
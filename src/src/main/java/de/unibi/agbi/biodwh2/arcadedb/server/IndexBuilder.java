@@ -0,0 +1,149 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.index.IndexException;
+import com.arcadedb.index.lsm.LSMTreeIndexAbstract;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.Schema;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import de.unibi.agbi.biodwh2.core.model.graph.IndexDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Builds the LSM-tree indices after all data has been loaded. Indices of different labels are processed concurrently,
+ * indices of the same label one after another. The schema of ArcadeDB is not safe for concurrent changes, so creating
+ * types and indices, which includes building LSM-tree indices, is serialized on the schema lock and only filling the
+ * auxiliary types of array property indices runs in parallel. Each build reserves an estimate of its memory from the
+ * configured budget before it starts.
+ */
+final class IndexBuilder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexBuilder.class);
+    private static final long PROGRESS_INTERVAL_NANOS = 10_000_000_000L;
+    private static final long ESTIMATED_BYTES_PER_ENTRY = 64;
+
+    private final DatabaseInternal db;
+    private final ImportSettings settings;
+    private final ImportReport report;
+    private final Semaphore memoryBudget;
+    private final int memoryBudgetMegabytes;
+    private final Object schemaLock = new Object();
+
+    IndexBuilder(final DatabaseInternal db, final ImportSettings settings, final ImportReport report) {
+        this.db = db;
+        this.settings = settings;
+        this.report = report;
+        memoryBudgetMegabytes = settings.indexMemoryMegabytes > 0 ? settings.indexMemoryMegabytes :
+                                Integer.MAX_VALUE;
+        memoryBudget = new Semaphore(memoryBudgetMegabytes, true);
+    }
+
+    void createIndices(final IndexDescription[] indices) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Creating indices using " + settings.indexThreads + " threads...");
+        final long start = System.nanoTime();
+        final Map<String, List<IndexDescription>> indicesByLabel = new LinkedHashMap<>();
+        for (final IndexDescription index : indices)
+            if (!indexExists(index))
+                indicesByLabel.computeIfAbsent(index.getLabel(), k -> new ArrayList<>()).add(index);
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(settings.indexThreads, indicesByLabel.size())));
+        final List<Future<?>> futures = new ArrayList<>();
+        for (final List<IndexDescription> labelIndices : indicesByLabel.values())
+            futures.add(executor.submit(() -> {
+                for (final IndexDescription index : labelIndices)
+                    createIndex(index);
+            }));
+        try {
+            for (final Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during index creation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Index creation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info(String.format("Created indices in %.1fs", (System.nanoTime() - start) / 1e9));
+    }
+
+    private boolean indexExists(final IndexDescription index) {
+        if (index.isArrayProperty())
+            return ArrayPropertyIndex.exists(db, index.getLabel(), index.getProperty());
+        if (!db.getSchema().existsType(index.getLabel()))
+            return false;
+        final DocumentType type = db.getSchema().getType(index.getLabel());
+        return type.getPolymorphicIndexByProperties(index.getProperty()) != null;
+    }
+
+    private void createIndex(final IndexDescription index) {
+        final String description =
+                index.getType() + " index on '" + index.getProperty() + "' field for " + index.getTarget() +
+                " label '" + index.getLabel() + "'";
+        final long total = db.countType(index.getLabel(), false);
+        final int reservedMegabytes = (int) Math.max(1, Math.min(memoryBudgetMegabytes,
+                                                                 total * ESTIMATED_BYTES_PER_ENTRY / 1048576));
+        try {
+            memoryBudget.acquire(reservedMegabytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to create " + description, e);
+        }
+        final ImportReport.Measurement measurement = report.startLabel("indices", index.getLabel() + "." +
+                                                                                  index.getProperty());
+        try {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Creating " + description + " over " + total + " records...");
+            final long start = System.nanoTime();
+            if (index.isArrayProperty()) {
+                // Array indices are stored in an auxiliary type as ArcadeDB does not support indexing arrays
+                ArrayPropertyIndex.build(db, settings, index.getLabel(), index.getProperty(), getPageSize(),
+                                         schemaLock);
+            } else {
+                final long[] lastProgress = {start};
+                final boolean isUnique = index.getType() == IndexDescription.Type.UNIQUE;
+                synchronized (schemaLock) {
+                    db.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, isUnique, index.getLabel(),
+                                                   new String[]{index.getProperty()}, getPageSize(),
+                                                   LSMTreeIndexAbstract.NULL_STRATEGY.SKIP,
+                                                   (document, totalIndexed) -> {
+                                                       final long now = System.nanoTime();
+                                                       if (now - lastProgress[0] >= PROGRESS_INTERVAL_NANOS) {
+                                                           lastProgress[0] = now;
+                                                           logProgress(description, totalIndexed, total);
+                                                       }
+                                                   });
+                }
+            }
+            measurement.addRecords(total, 0);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info(String.format("Created %s in %.1fs", description, (System.nanoTime() - start) / 1e9));
+        } catch (IndexException e) {
+            LOGGER.warn("Error during " + description + " creation");
+        } finally {
+            measurement.stop();
+            memoryBudget.release(reservedMegabytes);
+        }
+    }
+
+    private static void logProgress(final String description, final long totalIndexed, final long total) {
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info(String.format("Creating %s: %d/%d records (%.1f%%)", description, totalIndexed, total,
+                                      total > 0 ? totalIndexed * 100.0 / total : 100.0));
+    }
+
+    private int getPageSize() {
+        return settings.indexPageSize > 0 ? settings.indexPageSize : LSMTreeIndexAbstract.DEF_PAGE_SIZE;
+    }
+}
@@ -18,31 +18,32 @@ class InjectionLogger implements Logger {
                     Object arg1, Object arg2, Object arg3, Object arg4, Object arg5, Object arg6, Object arg7,
                     Object arg8, Object arg9, Object arg10, Object arg11, Object arg12, Object arg13,
                     Object arg14, Object arg15, Object arg16, Object arg17) {
-        final String requesterName;
-        if (requester instanceof String)
-            requesterName = (String) requester;
-        else if (requester instanceof Class<?>)
-            requesterName = ((Class<?>) requester).getName();
-        else if (requester != null)
-            requesterName = requester.getClass().getName();
-        else
-            requesterName = "com.arcadedb";
-        message = '[' + requesterName + "] " + String.format(message, arg1, arg2, arg3, arg4, arg5, arg6, arg7,
-                                                             arg8, arg9, arg10, arg11, arg12, arg13, arg14,
-                                                             arg15, arg16, arg17);
-        if (level == Level.INFO)
-            LOGGER.info(message, exception);
-        else if (level == Level.WARNING)
-            LOGGER.warn(message, exception);
-        else if (level == Level.SEVERE)
-            LOGGER.error(message, exception);
-        else if (level == Level.FINE)
-            LOGGER.debug(message, exception);
+        if (isEnabled(level))
+            write(level, format(requester, message,
+                                new Object[]{arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9, arg10, arg11,
+                                             arg12, arg13, arg14, arg15, arg16, arg17}), exception);
     }
 
     @Override
     public void log(Object requester, Level level, String message, Throwable exception, String context,
                     Object... args) {
+        if (isEnabled(level))
+            write(level, format(requester, message, args), exception);
+    }
+
+    private static boolean isEnabled(final Level level) {
+        if (level == Level.INFO)
+            return LOGGER.isInfoEnabled();
+        if (level == Level.WARNING)
+            return LOGGER.isWarnEnabled();
+        if (level == Level.SEVERE)
+            return LOGGER.isErrorEnabled();
+        if (level == Level.FINE)
+            return LOGGER.isDebugEnabled();
+        return false;
+    }
+
+    private static String format(final Object requester, final String message, final Object[] args) {
         final String requesterName;
         if (requester instanceof String)
             requesterName = (String) requester;
@@ -52,7 +53,13 @@ class InjectionLogger implements Logger {
             requesterName = requester.getClass().getName();
         else
             requesterName = "com.arcadedb";
-        message = '[' + requesterName + "] " + String.format(message, args);
+        // Messages without format specifiers are passed through as is
+        final String text = message != null && message.indexOf('%') >= 0 && args != null && args.length > 0 ?
+                            String.format(message, args) : message;
+        return '[' + requesterName + "] " + text;
+    }
+
+    private static void write(final Level level, final String message, final Throwable exception) {
         if (level == Level.INFO)
             LOGGER.info(message, exception);
         else if (level == Level.WARNING)
@@ -0,0 +1,146 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import de.unibi.agbi.biodwh2.core.model.graph.Edge;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Order-independent content fingerprints per node and edge label, used to detect which labels of a workspace changed
+ * since the database was last imported.
+ */
+final class LabelFingerprints {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Map<String, String> nodeLabels = new TreeMap<>();
+    private final Map<String, String> edgeLabels = new TreeMap<>();
+
+    synchronized void putNodeLabel(final String label, final Accumulator accumulator) {
+        nodeLabels.put(label, accumulator.toString());
+    }
+
+    synchronized void putEdgeLabel(final String label, final Accumulator accumulator) {
+        edgeLabels.put(label, accumulator.toString());
+    }
+
+    synchronized void putNodeLabel(final String label, final String fingerprint) {
+        nodeLabels.put(label, fingerprint);
+    }
+
+    synchronized void putEdgeLabel(final String label, final String fingerprint) {
+        edgeLabels.put(label, fingerprint);
+    }
+
+    synchronized void removeNodeLabel(final String label) {
+        nodeLabels.remove(label);
+    }
+
+    synchronized void removeEdgeLabel(final String label) {
+        edgeLabels.remove(label);
+    }
+
+    synchronized String getNodeLabel(final String label) {
+        return nodeLabels.get(label);
+    }
+
+    synchronized String getEdgeLabel(final String label) {
+        return edgeLabels.get(label);
+    }
+
+    synchronized Set<String> getNodeLabels() {
+        return new HashSet<>(nodeLabels.keySet());
+    }
+
+    synchronized Set<String> getEdgeLabels() {
+        return new HashSet<>(edgeLabels.keySet());
+    }
+
+    synchronized void save(final Path filePath) throws IOException {
+        final JSONObject json = new JSONObject();
+        json.put("nodes", new JSONObject(nodeLabels));
+        json.put("edges", new JSONObject(edgeLabels));
+        Files.write(filePath, json.toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static LabelFingerprints load(final Path filePath) throws IOException {
+        final JSONObject json = new JSONObject(new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8));
+        final LabelFingerprints result = new LabelFingerprints();
+        final JSONObject nodes = json.getJSONObject("nodes");
+        for (final String label : nodes.keySet())
+            result.nodeLabels.put(label, nodes.getString(label));
+        final JSONObject edges = json.getJSONObject("edges");
+        for (final String label : edges.keySet())
+            result.edgeLabels.put(label, edges.getString(label));
+        return result;
+    }
+
+    static long hash(final Node node) {
+        long hash = hash(FNV_OFFSET_BASIS, node.getId());
+        for (final String key : node.keySet())
+            if (!Node.IGNORED_FIELDS.contains(key))
+                hash += hashProperty(key, node.getProperty(key));
+        return hash;
+    }
+
+    static long hash(final Edge edge) {
+        long hash = hash(hash(FNV_OFFSET_BASIS, edge.getFromId()), edge.getToId());
+        for (final String key : edge.keySet())
+            if (!Edge.IGNORED_FIELDS.contains(key))
+                hash += hashProperty(key, edge.getProperty(key));
+        return hash;
+    }
+
+    private static long hashProperty(final String key, final Object value) {
+        final String text = value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value);
+        return mix(hash(hash(FNV_OFFSET_BASIS, key), text));
+    }
+
+    private static long hash(long hash, final long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Sums the mixed hashes of all elements of a label, so the fingerprint does not depend on iteration order.
+     */
+    static final class Accumulator {
+        private long sum;
+        private long count;
+
+        void add(final long elementHash) {
+            sum += mix(elementHash);
+            count++;
+        }
+
+        @Override
+        public String toString() {
+            return count + ":" + Long.toHexString(sum);
+        }
+    }
+}
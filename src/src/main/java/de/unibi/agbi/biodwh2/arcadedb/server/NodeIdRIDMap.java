@@ -0,0 +1,306 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.RID;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Compact mapping of BioDWH2 node ids to ArcadeDB RIDs using open addressing over two primitive long arrays. The
+ * bucket id and position of each RID are packed into a single long, so no key, value or entry objects are allocated
+ * per node. Writes are synchronized, reads are not. A grown table is filled completely before it is published through
+ * a volatile field, so a reader always sees the keys, values and mask of the same table. Entries written into the
+ * current table are only guaranteed to be visible to readers after all writes have completed and the reading thread
+ * synchronized with the writers, e.g. by waiting for their futures.
+ */
+final class NodeIdRIDMap {
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int POSITION_BITS = 48;
+    private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+    private static final int MAX_BUCKET_ID = (1 << (Long.SIZE - POSITION_BITS - 1)) - 1;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.6;
+
+    private final Database db;
+    private volatile Table table;
+    private int[] degrees;
+    private int size;
+
+    NodeIdRIDMap(final Database db, final long expectedSize) {
+        this.db = db;
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(final long expectedSize) {
+        final long required = (long) Math.ceil(Math.max(expectedSize, 16) / LOAD_FACTOR);
+        if (required > MAX_CAPACITY)
+            return MAX_CAPACITY;
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    synchronized void put(final long nodeId, final RID rid) {
+        if (nodeId == EMPTY_KEY)
+            throw new IllegalArgumentException("Node id " + nodeId + " is reserved");
+        if (rid.getBucketId() < 0 || rid.getBucketId() > MAX_BUCKET_ID || rid.getPosition() < 0 ||
+            rid.getPosition() > POSITION_MASK)
+            throw new IllegalArgumentException("RID " + rid + " cannot be packed");
+        insertPacked(nodeId, ((long) rid.getBucketId() << POSITION_BITS) | rid.getPosition());
+    }
+
+    private void grow() {
+        final Table oldTable = table;
+        if (oldTable.keys.length == MAX_CAPACITY)
+            throw new IllegalStateException("Node id mapping exceeded its maximum capacity of " + size + " nodes");
+        final Table newTable = new Table(oldTable.keys.length << 1);
+        for (int i = 0; i < oldTable.keys.length; i++)
+            if (oldTable.keys[i] != EMPTY_KEY)
+                newTable.insert(oldTable.keys[i], oldTable.values[i]);
+        degrees = null;
+        table = newTable;
+    }
+
+    synchronized void remove(final long nodeId) {
+        final Table table = this.table;
+        final long[] keys = table.keys;
+        final long[] values = table.values;
+        final int mask = table.mask;
+        int slot = hash(nodeId) & mask;
+        while (keys[slot] != nodeId) {
+            if (keys[slot] == EMPTY_KEY)
+                return;
+            slot = (slot + 1) & mask;
+        }
+        // Backward shift deletion keeps all probe sequences intact without tombstones
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY_KEY) {
+            final int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY_KEY;
+        degrees = null;
+        size--;
+    }
+
+    long[] getNodeIdsInBuckets(final Set<Integer> bucketIds) {
+        final Table table = this.table;
+        long[] result = new long[16];
+        int count = 0;
+        for (int i = 0; i < table.keys.length; i++)
+            if (table.keys[i] != EMPTY_KEY && bucketIds.contains(getBucketId(table.values[i]))) {
+                if (count == result.length)
+                    result = Arrays.copyOf(result, result.length << 1);
+                result[count++] = table.keys[i];
+            }
+        return Arrays.copyOf(result, count);
+    }
+
+    long getPackedRID(final long nodeId) {
+        final Table table = this.table;
+        final int slot = table.findSlot(nodeId);
+        return slot == -1 ? -1 : table.values[slot];
+    }
+
+    /**
+     * Counts an outgoing edge of the node. The counts are kept parallel to the slots and dropped whenever entries
+     * move, so they must be counted after all writes and are not synchronized.
+     */
+    void incrementDegree(final long nodeId) {
+        final Table table = this.table;
+        final int slot = table.findSlot(nodeId);
+        if (slot == -1)
+            return;
+        if (degrees == null)
+            degrees = new int[table.keys.length];
+        if (degrees[slot] != Integer.MAX_VALUE)
+            degrees[slot]++;
+    }
+
+    int getDegree(final long nodeId) {
+        if (degrees == null)
+            return 0;
+        final int slot = table.findSlot(nodeId);
+        return slot == -1 ? 0 : degrees[slot];
+    }
+
+    int countDegreesAbove(final int threshold) {
+        int count = 0;
+        if (degrees != null)
+            for (final int degree : degrees)
+                if (degree > threshold)
+                    count++;
+        return count;
+    }
+
+    int getMaxDegree() {
+        int result = 0;
+        if (degrees != null)
+            for (final int degree : degrees)
+                result = Math.max(result, degree);
+        return result;
+    }
+
+    void clearDegrees() {
+        degrees = null;
+    }
+
+    RID get(final long nodeId) {
+        return toRID(getPackedRID(nodeId));
+    }
+
+    RID toRID(final long packedRID) {
+        return packedRID == -1 ? null : new RID(db, getBucketId(packedRID), packedRID & POSITION_MASK);
+    }
+
+    static int getBucketId(final long packedRID) {
+        return packedRID == -1 ? -1 : (int) (packedRID >>> POSITION_BITS);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getMemoryUsage() {
+        return 2L * table.keys.length * Long.BYTES + (degrees != null ? (long) degrees.length * Integer.BYTES : 0);
+    }
+
+    /**
+     * Rough estimate of a {@code HashMap<Long, RID>} holding the same number of nodes on a 64-bit JVM with
+     * compressed oops: table slot, entry, boxed key and RID object per node.
+     */
+    static long estimateHashMapMemoryUsage(final long size) {
+        final long tableSlots = Long.highestOneBit(Math.max((long) (size / 0.75), 1)) << 1;
+        return tableSlots * 4 + size * (32 + 16 + 24);
+    }
+
+    synchronized void save(final Path filePath) throws IOException {
+        try (final DataOutputStream stream = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(filePath), 1 << 16))) {
+            stream.writeInt(size);
+            for (int i = 0; i < table.keys.length; i++)
+                if (table.keys[i] != EMPTY_KEY) {
+                    stream.writeLong(table.keys[i]);
+                    stream.writeLong(table.values[i]);
+                }
+        }
+    }
+
+    static NodeIdRIDMap load(final Database db, final Path filePath) throws IOException {
+        try (final DataInputStream stream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(filePath), 1 << 16))) {
+            final int size = stream.readInt();
+            final NodeIdRIDMap result = new NodeIdRIDMap(db, size);
+            for (int i = 0; i < size; i++)
+                result.insertPacked(stream.readLong(), stream.readLong());
+            return result;
+        }
+    }
+
+    /**
+     * Appends all entries whose RID lies in one of the buckets to the stream as pairs of node id and packed RID.
+     */
+    synchronized long appendEntries(final DataOutputStream stream, final Set<Integer> bucketIds) throws IOException {
+        long count = 0;
+        for (int i = 0; i < table.keys.length; i++)
+            if (table.keys[i] != EMPTY_KEY && bucketIds.contains(getBucketId(table.values[i]))) {
+                stream.writeLong(table.keys[i]);
+                stream.writeLong(table.values[i]);
+                count++;
+            }
+        return count;
+    }
+
+    /**
+     * Loads the pairs written by {@link #appendEntries(DataOutputStream, Set)}. Later pairs of the same node id
+     * replace earlier ones and an incomplete trailing pair is ignored.
+     */
+    static NodeIdRIDMap loadEntries(final Database db, final Path filePath,
+                                    final long expectedSize) throws IOException {
+        final NodeIdRIDMap result = new NodeIdRIDMap(db, expectedSize);
+        if (!Files.exists(filePath))
+            return result;
+        final long count = Files.size(filePath) / (2 * Long.BYTES);
+        try (final DataInputStream stream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(filePath), 1 << 16))) {
+            for (long i = 0; i < count; i++)
+                result.insertPacked(stream.readLong(), stream.readLong());
+        }
+        return result;
+    }
+
+    private void insertPacked(final long nodeId, final long packedRID) {
+        if (size >= table.resizeThreshold)
+            grow();
+        if (table.insert(nodeId, packedRID))
+            size++;
+    }
+
+    String getMemoryReport() {
+        return String.format("Node id mapping holds %d nodes in %.1f MB (capacity %d, load %.2f); a " +
+                             "HashMap<Long, RID> would need about %.1f MB", size, getMemoryUsage() / 1048576.0,
+                             getCapacity(), size / (double) getCapacity(),
+                             estimateHashMapMemoryUsage(size) / 1048576.0);
+    }
+
+    int getCapacity() {
+        return table.keys.length;
+    }
+
+    /**
+     * Slots of the open addressing table. The arrays and mask never change after construction, so a reader holding a
+     * table can only see a consistent set of them.
+     */
+    private static final class Table {
+        final long[] keys;
+        final long[] values;
+        final int mask;
+        final int resizeThreshold;
+
+        Table(final int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(keys, EMPTY_KEY);
+            mask = capacity - 1;
+            resizeThreshold = capacity == MAX_CAPACITY ? capacity - 1 : (int) (capacity * LOAD_FACTOR);
+        }
+
+        int findSlot(final long key) {
+            int slot = hash(key) & mask;
+            long slotKey;
+            while ((slotKey = keys[slot]) != EMPTY_KEY) {
+                if (slotKey == key)
+                    return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        boolean insert(final long key, final long value) {
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY_KEY) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            values[slot] = value;
+            keys[slot] = key;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.engine.Bucket;
+import com.arcadedb.engine.PageId;
+import com.arcadedb.engine.PageManager;
+import com.arcadedb.engine.PaginatedComponent;
+import com.arcadedb.engine.PaginatedFile;
+import com.arcadedb.schema.DocumentType;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.WarmUpSettings;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preloads pages of a database into the ArcadeDB read cache in the background, so the first queries after a start do
+ * not read every page cold from disk. Index pages are loaded first, followed by the buckets of the configured types
+ * or, if none are configured, the buckets ranked by how many of their pages were cached at the previous shutdown.
+ * Without statistics the smallest buckets are loaded first. Loading stops once the memory budget is used up.
+ */
+final class PageCacheWarmer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageCacheWarmer.class);
+    static final String STATISTICS_FILE_NAME = "page-cache-statistics.json";
+
+    private final DatabaseInternal db;
+    private final WarmUpSettings settings;
+    private final Path statisticsFilePath;
+    private volatile boolean stopped;
+    private Thread thread;
+
+    PageCacheWarmer(final DatabaseInternal db, final WarmUpSettings settings, final Path directory) {
+        this.db = db;
+        this.settings = settings;
+        statisticsFilePath = directory.resolve(STATISTICS_FILE_NAME);
+    }
+
+    /**
+     * Starts the warm-up in a daemon thread and returns immediately.
+     */
+    void start() {
+        thread = new Thread(this::warmUp, "page-cache-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        stopped = true;
+        if (thread != null)
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+    }
+
+    private void warmUp() {
+        final long startTime = System.currentTimeMillis();
+        final long budget = getBudgetBytes();
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Warming up page cache with a budget of " + (budget / 1048576) + " MB (" + settings + ")...");
+        final List<PaginatedComponent> components = selectComponents(loadStatistics());
+        final AtomicLong remaining = new AtomicLong(budget);
+        final AtomicLong loadedPages = new AtomicLong();
+        final AtomicLong loadedBytes = new AtomicLong();
+        final ExecutorService executor = Executors.newFixedThreadPool(settings.threads, runnable -> {
+            final Thread worker = new Thread(runnable, "page-cache-warm-up-worker");
+            worker.setDaemon(true);
+            return worker;
+        });
+        for (final PaginatedComponent component : components)
+            executor.execute(() -> loadPages(component, remaining, loadedPages, loadedBytes));
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Warmed up page cache with " + loadedPages.get() + " pages (" + (loadedBytes.get() / 1048576) +
+                        " MB) in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    private long getBudgetBytes() {
+        if (settings.memoryMegabytes > 0)
+            return settings.memoryMegabytes * 1048576L;
+        // Leave half of the read cache to the queries, so the warm-up does not evict its own pages
+        return GlobalConfiguration.MAX_PAGE_RAM.getValueAsLong() * 1048576L / 2;
+    }
+
+    private List<PaginatedComponent> selectComponents(final Map<String, Long> statistics) {
+        final List<PaginatedComponent> indices = new ArrayList<>();
+        final List<PaginatedComponent> buckets = new ArrayList<>();
+        for (final PaginatedFile file : db.getFileManager().getFiles()) {
+            if (file == null)
+                continue;
+            final PaginatedComponent component = (PaginatedComponent) db.getSchema().getFileByIdIfExists(
+                    file.getFileId());
+            if (component == null)
+                continue;
+            if (!(component instanceof Bucket))
+                indices.add(component);
+            else if (settings.types.isEmpty() ? statistics.isEmpty() || statistics.containsKey(
+                    component.getName()) : isBucketOfConfiguredType((Bucket) component))
+                buckets.add(component);
+        }
+        final Comparator<PaginatedComponent> byCachedPages = Comparator.comparingLong(
+                c -> -statistics.getOrDefault(c.getName(), 0L));
+        final Comparator<PaginatedComponent> bySize = Comparator.comparingLong(PaginatedComponent::getTotalPages);
+        indices.sort(byCachedPages.thenComparing(bySize));
+        buckets.sort(byCachedPages.thenComparing(bySize));
+        final List<PaginatedComponent> result = new ArrayList<>(indices);
+        result.addAll(buckets);
+        return result;
+    }
+
+    private boolean isBucketOfConfiguredType(final Bucket bucket) {
+        final DocumentType type = db.getSchema().getTypeByBucketId(bucket.getId());
+        return type != null && settings.types.contains(type.getName());
+    }
+
+    private void loadPages(final PaginatedComponent component, final AtomicLong remaining,
+                           final AtomicLong loadedPages, final AtomicLong loadedBytes) {
+        final int pageSize = component.getPageSize();
+        final PageManager pageManager = db.getPageManager();
+        try {
+            for (int pageNumber = 0; pageNumber < component.getTotalPages(); pageNumber++) {
+                if (stopped || remaining.addAndGet(-pageSize) < 0)
+                    return;
+                pageManager.getPage(new PageId(component.getFileId(), pageNumber), pageSize, false, true);
+                loadedPages.incrementAndGet();
+                loadedBytes.addAndGet(pageSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The warm-up is best effort, e.g. the database may have been closed in the meantime
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Failed to preload pages of '" + component.getName() + "'", e);
+        }
+    }
+
+    private Map<String, Long> loadStatistics() {
+        final Map<String, Long> statistics = new HashMap<>();
+        if (!Files.exists(statisticsFilePath))
+            return statistics;
+        try {
+            final JSONObject json = new JSONObject(
+                    new String(Files.readAllBytes(statisticsFilePath), StandardCharsets.UTF_8));
+            for (final String name : json.keySet())
+                statistics.put(name, json.getLong(name));
+        } catch (IOException | RuntimeException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to load page cache statistics, ignoring them", e);
+        }
+        return statistics;
+    }
+
+    /**
+     * Stores the number of cached pages per bucket and index, which ranks them for the warm-up of the next start.
+     */
+    static void storeStatistics(final DatabaseInternal db, final Path directory) {
+        final Map<Integer, Long> cachedPagesPerFile = countCachedPagesPerFile(db.getPageManager());
+        if (cachedPagesPerFile == null)
+            return;
+        final JSONObject json = new JSONObject();
+        for (final Map.Entry<Integer, Long> entry : cachedPagesPerFile.entrySet()) {
+            final Object component = db.getSchema().getFileByIdIfExists(entry.getKey());
+            if (component instanceof PaginatedComponent)
+                json.put(((PaginatedComponent) component).getName(), entry.getValue());
+        }
+        try {
+            Files.write(directory.resolve(STATISTICS_FILE_NAME), json.toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to store page cache statistics", e);
+        }
+    }
+
+    /**
+     * ArcadeDB does not expose which pages are cached, so the read cache is inspected directly. If the internals
+     * changed, no statistics are stored and the next warm-up falls back to the smallest buckets.
+     */
+    private static Map<Integer, Long> countCachedPagesPerFile(final PageManager pageManager) {
+        try {
+            final Field field = PageManager.class.getDeclaredField("readCache");
+            field.setAccessible(true);
+            final Map<Integer, Long> result = new HashMap<>();
+            for (final Object key : ((Map<?, ?>) field.get(pageManager)).keySet())
+                if (key instanceof PageId)
+                    result.merge(((PageId) key).getFileId(), 1L, Long::sum);
+            return result;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to collect page cache statistics: " + e.getMessage());
+            return null;
+        }
+    }
+}
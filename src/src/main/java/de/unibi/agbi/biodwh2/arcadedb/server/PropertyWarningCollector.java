@@ -0,0 +1,80 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates properties which could not be written instead of logging every occurrence. Occurrences are counted per
+ * label and property key and the first few of each are kept as samples for the summary logged at the end of the
+ * import. Every occurrence is still logged on the debug level.
+ */
+final class PropertyWarningCollector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertyWarningCollector.class);
+    private static final int MAX_SAMPLES = 3;
+    private static final int MAX_SAMPLE_VALUE_LENGTH = 80;
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+    private long total;
+
+    synchronized void add(final String label, final String propertyKey, final Object elementId, final Object value,
+                          final Exception exception) {
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Illegal property '" + propertyKey + " -> " + value + "' for '" + elementId + "[:" + label +
+                         "]'", exception);
+        final Entry entry = entries.computeIfAbsent(label + "\t" + propertyKey, k -> new Entry(label, propertyKey));
+        entry.count++;
+        total++;
+        if (entry.samples.size() < MAX_SAMPLES)
+            entry.samples.add(elementId + " -> " + abbreviate(String.valueOf(value)) + " (" +
+                              exception.getClass().getSimpleName() + ")");
+    }
+
+    private static String abbreviate(final String text) {
+        return text.length() > MAX_SAMPLE_VALUE_LENGTH ? text.substring(0, MAX_SAMPLE_VALUE_LENGTH - 3) + "..." :
+               text;
+    }
+
+    synchronized long getTotal() {
+        return total;
+    }
+
+    synchronized void logSummary() {
+        if (total == 0 || !LOGGER.isWarnEnabled())
+            return;
+        int labelWidth = "Label".length();
+        int keyWidth = "Property".length();
+        for (final Entry entry : entries.values()) {
+            labelWidth = Math.max(labelWidth, entry.label.length());
+            keyWidth = Math.max(keyWidth, entry.propertyKey.length());
+        }
+        final String rowFormat = "%-" + labelWidth + "s  %-" + keyWidth + "s  %12s%n";
+        final StringBuilder builder = new StringBuilder();
+        builder.append("Skipped ").append(total).append(" illegal properties:").append(System.lineSeparator());
+        builder.append(String.format(rowFormat, "Label", "Property", "Count"));
+        for (final Entry entry : entries.values())
+            builder.append(String.format(rowFormat, entry.label, entry.propertyKey, entry.count));
+        builder.append("Samples:");
+        for (final Entry entry : entries.values())
+            for (final String sample : entry.samples)
+                builder.append(System.lineSeparator()).append("  ").append(entry.label).append('.').append(
+                        entry.propertyKey).append(": ").append(sample);
+        LOGGER.warn(builder.toString());
+    }
+
+    private static final class Entry {
+        final String label;
+        final String propertyKey;
+        final List<String> samples = new ArrayList<>(MAX_SAMPLES);
+        long count;
+
+        Entry(final String label, final String propertyKey) {
+            this.label = label;
+            this.propertyKey = propertyKey;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import de.unibi.agbi.biodwh2.core.lang.Type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Per-label plan of the properties to write, built once from the property key types of the label. Ignored fields
+ * are dropped up front and every key gets a converter resolved from its declared type, so collections are copied
+ * into typed arrays directly instead of probing the element type of every value.
+ */
+final class PropertyWritePlan {
+    private final String[] keys;
+    private final Converter[] converters;
+
+    private PropertyWritePlan(final String[] keys, final Converter[] converters) {
+        this.keys = keys;
+        this.converters = converters;
+    }
+
+    static PropertyWritePlan create(final Map<String, Type> propertyKeyTypes, final Set<String> ignoredFields) {
+        final List<String> keys = new ArrayList<>(propertyKeyTypes.size());
+        final List<Converter> converters = new ArrayList<>(propertyKeyTypes.size());
+        for (final Map.Entry<String, Type> entry : propertyKeyTypes.entrySet()) {
+            if (ignoredFields.contains(entry.getKey()))
+                continue;
+            keys.add(entry.getKey());
+            converters.add(getConverter(entry.getValue()));
+        }
+        return new PropertyWritePlan(keys.toArray(new String[0]), converters.toArray(new Converter[0]));
+    }
+
+    private static Converter getConverter(final Type type) {
+        if (type == null || !type.isList())
+            return PropertyWritePlan::convertValue;
+        final Class<?> componentType = type.getComponentType();
+        final IntFunction<Object[]> arrayFactory = getArrayFactory(componentType);
+        if (arrayFactory == null)
+            return PropertyWritePlan::convertValue;
+        return value -> {
+            if (!(value instanceof Collection))
+                return value;
+            final Collection<?> collection = (Collection<?>) value;
+            final Object[] result = arrayFactory.apply(collection.size());
+            int i = 0;
+            for (final Object element : collection) {
+                // Fall back to the element type of the value if the declared type does not match
+                if (element != null && !componentType.isInstance(element))
+                    return convertCollectionToArray(collection);
+                result[i++] = element;
+            }
+            return result;
+        };
+    }
+
+    private static IntFunction<Object[]> getArrayFactory(final Class<?> componentType) {
+        if (componentType == String.class)
+            return String[]::new;
+        if (componentType == Boolean.class)
+            return Boolean[]::new;
+        if (componentType == Integer.class)
+            return Integer[]::new;
+        if (componentType == Float.class)
+            return Float[]::new;
+        if (componentType == Long.class)
+            return Long[]::new;
+        if (componentType == Double.class)
+            return Double[]::new;
+        if (componentType == Byte.class)
+            return Byte[]::new;
+        if (componentType == Short.class)
+            return Short[]::new;
+        return null;
+    }
+
+    private static Object convertValue(final Object value) {
+        return value instanceof Collection ? convertCollectionToArray((Collection<?>) value) : value;
+    }
+
+    /**
+     * Copies the collection into an array of the class of its first non-null element, or into a string array if that
+     * class is not supported. An element of another class fails with a {@link ClassCastException}, so the property is
+     * skipped and reported instead of being stored with changed element types.
+     */
+    static Object convertCollectionToArray(final Collection<?> collection) {
+        Class<?> type = null;
+        for (final Object element : collection) {
+            if (element != null) {
+                type = element.getClass();
+                break;
+            }
+        }
+        final IntFunction<Object[]> arrayFactory = type != null ? getArrayFactory(type) : null;
+        if (arrayFactory != null) {
+            final Object[] result = arrayFactory.apply(collection.size());
+            int i = 0;
+            for (final Object element : collection)
+                result[i++] = type.cast(element);
+            return result;
+        }
+        final String[] result = new String[collection.size()];
+        int i = 0;
+        for (final Object element : collection)
+            result[i++] = element != null ? element.toString() : null;
+        return result;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String getKey(final int index) {
+        return keys[index];
+    }
+
+    Object convert(final int index, final Object value) {
+        return converters[index].convert(value);
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        Object convert(Object value);
+    }
+}
@@ -0,0 +1,253 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import de.unibi.agbi.biodwh2.arcadedb.server.model.BenchmarkSettings;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays a query workload against the HTTP query endpoint of the running server and measures the throughput and
+ * latency percentiles per query. Queries are picked in a fixed, weighted order, so runs are repeatable. Requests sent
+ * during the warm-up phase are not measured. With a target rate, latencies are measured from the time a request was
+ * scheduled rather than sent, so a stalled server is not hidden by clients waiting for it.
+ * <p>
+ * The workload file is a JSON array of queries:
+ * <pre>[{"name": "gene-count", "language": "cypher", "command": "MATCH (g:Gene) RETURN count(g)", "weight": 2}]</pre>
+ */
+final class QueryBenchmark {
+    private final URL queryUrl;
+    private final String authorization;
+    private final BenchmarkSettings settings;
+    private final List<WorkloadQuery> queries;
+    private final int[] schedule;
+    private final AtomicLong requestCounter = new AtomicLong();
+
+    QueryBenchmark(final int port, final String databaseName, final String user, final String password,
+                   final BenchmarkSettings settings) throws IOException {
+        queryUrl = new URL("http://localhost:" + port + "/api/v1/query/" + databaseName);
+        authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (user + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.settings = settings;
+        queries = loadWorkload(settings.workloadFilePath);
+        schedule = createSchedule(queries);
+    }
+
+    private static List<WorkloadQuery> loadWorkload(final Path filePath) throws IOException {
+        final JSONArray json = new JSONArray(new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8));
+        final List<WorkloadQuery> result = new ArrayList<>();
+        for (int i = 0; i < json.length(); i++) {
+            final JSONObject query = json.getJSONObject(i);
+            final JSONObject body = new JSONObject();
+            body.put("language", query.optString("language", "sql"));
+            body.put("command", query.getString("command"));
+            if (query.has("params"))
+                body.put("params", query.getJSONObject("params"));
+            result.add(new WorkloadQuery(query.optString("name", "query-" + (i + 1)), body.getString("language"),
+                                         body.toString().getBytes(StandardCharsets.UTF_8),
+                                         Math.max(1, query.optInt("weight", 1))));
+        }
+        if (result.isEmpty())
+            throw new IOException("Workload file '" + filePath + "' contains no queries");
+        return result;
+    }
+
+    private static int[] createSchedule(final List<WorkloadQuery> queries) {
+        final List<Integer> schedule = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++)
+            for (int j = 0; j < queries.get(i).weight; j++)
+                schedule.add(i);
+        Collections.shuffle(schedule, new Random(42));
+        final int[] result = new int[schedule.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = schedule.get(i);
+        return result;
+    }
+
+    JSONObject run() throws InterruptedException {
+        final long startTime = System.nanoTime();
+        final long measureStartTime = startTime + TimeUnit.SECONDS.toNanos(settings.warmUpSeconds);
+        final long endTime = measureStartTime + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+        final long intervalNanos = settings.rate > 0 ? (long) (1e9 / settings.rate) : 0;
+        final AtomicLong nextRequestTime = new AtomicLong(startTime);
+        final Thread[] clients = new Thread[settings.concurrency];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new Thread(() -> runClient(intervalNanos, nextRequestTime, measureStartTime, endTime),
+                                    "benchmark-client-" + i);
+            clients[i].start();
+        }
+        for (final Thread client : clients)
+            client.join();
+        return createReport();
+    }
+
+    private void runClient(final long intervalNanos, final AtomicLong nextRequestTime, final long measureStartTime,
+                           final long endTime) {
+        while (true) {
+            final long scheduledTime;
+            if (intervalNanos > 0) {
+                scheduledTime = nextRequestTime.getAndAdd(intervalNanos);
+                if (scheduledTime >= endTime)
+                    return;
+                final long delay = scheduledTime - System.nanoTime();
+                if (delay > 0)
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+            } else {
+                scheduledTime = System.nanoTime();
+                if (scheduledTime >= endTime)
+                    return;
+            }
+            final WorkloadQuery query = queries.get(
+                    schedule[(int) (requestCounter.getAndIncrement() % schedule.length)]);
+            final boolean success = send(query);
+            if (scheduledTime >= measureStartTime)
+                query.recorder.record(System.nanoTime() - scheduledTime, success);
+        }
+    }
+
+    private boolean send(final WorkloadQuery query) {
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) queryUrl.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Authorization", authorization);
+            try (OutputStream stream = connection.getOutputStream()) {
+                stream.write(query.body);
+            }
+            final int statusCode = connection.getResponseCode();
+            // Read the whole response, so its transfer is measured and the connection can be reused
+            try (InputStream stream = statusCode < 400 ? connection.getInputStream() :
+                                      connection.getErrorStream()) {
+                if (stream != null)
+                    IOUtils.skip(stream, Long.MAX_VALUE);
+            }
+            return statusCode == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private JSONObject createReport() {
+        final JSONObject json = new JSONObject();
+        json.put("timestamp", System.currentTimeMillis());
+        json.put("workload", String.valueOf(settings.workloadFilePath));
+        json.put("concurrency", settings.concurrency);
+        json.put("rate", settings.rate);
+        json.put("durationSeconds", settings.durationSeconds);
+        json.put("warmUpSeconds", settings.warmUpSeconds);
+        final LatencyRecorder total = new LatencyRecorder();
+        final JSONArray queriesJson = new JSONArray();
+        for (final WorkloadQuery query : queries) {
+            total.addAll(query.recorder);
+            queriesJson.put(query.recorder.toJSON(query.name, query.language, settings.durationSeconds));
+        }
+        json.put("queries", queriesJson);
+        json.put("total", total.toJSON("total", "", settings.durationSeconds));
+        return json;
+    }
+
+    static String formatReport(final JSONObject report) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-30s %10s %8s %10s %10s %10s %10s %10s%n", "query", "requests", "errors",
+                                     "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        final JSONArray queries = report.getJSONArray("queries");
+        for (int i = 0; i < queries.length(); i++)
+            appendRow(builder, queries.getJSONObject(i));
+        appendRow(builder, report.getJSONObject("total"));
+        return builder.toString();
+    }
+
+    private static void appendRow(final StringBuilder builder, final JSONObject stats) {
+        builder.append(String.format(Locale.ROOT, "%-30s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                                     stats.getString("name"), stats.getLong("requests"), stats.getLong("errors"),
+                                     stats.getDouble("throughput"), stats.getDouble("p50Millis"),
+                                     stats.getDouble("p95Millis"), stats.getDouble("p99Millis"),
+                                     stats.getDouble("maxMillis")));
+    }
+
+    private static final class WorkloadQuery {
+        final String name;
+        final String language;
+        final byte[] body;
+        final int weight;
+        final LatencyRecorder recorder = new LatencyRecorder();
+
+        WorkloadQuery(final String name, final String language, final byte[] body, final int weight) {
+            this.name = name;
+            this.language = language;
+            this.body = body;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Latencies of the successful requests in nanoseconds and the number of failed requests.
+     */
+    private static final class LatencyRecorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void record(final long latencyNanos, final boolean success) {
+            if (!success) {
+                errors++;
+                return;
+            }
+            if (count == latencies.length)
+                latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = latencyNanos;
+        }
+
+        synchronized void addAll(final LatencyRecorder other) {
+            synchronized (other) {
+                for (int i = 0; i < other.count; i++)
+                    record(other.latencies[i], true);
+                errors += other.errors;
+            }
+        }
+
+        synchronized JSONObject toJSON(final String name, final String language, final int durationSeconds) {
+            final long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (final long latency : sorted)
+                sum += latency;
+            final JSONObject json = new JSONObject();
+            json.put("name", name);
+            json.put("language", language);
+            json.put("requests", count + errors);
+            json.put("errors", errors);
+            json.put("throughput", (count + errors) / (double) durationSeconds);
+            json.put("meanMillis", count > 0 ? sum / 1e6 / count : 0.0);
+            json.put("p50Millis", percentile(sorted, 0.5));
+            json.put("p95Millis", percentile(sorted, 0.95));
+            json.put("p99Millis", percentile(sorted, 0.99));
+            json.put("maxMillis", sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0.0);
+            return json;
+        }
+
+        private static double percentile(final long[] sorted, final double quantile) {
+            if (sorted.length == 0)
+                return 0.0;
+            final int index = Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1);
+            return sorted[index] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.Database;
+import com.arcadedb.event.AfterRecordCreateListener;
+import com.arcadedb.event.AfterRecordDeleteListener;
+import com.arcadedb.event.AfterRecordUpdateListener;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.server.ArcadeDBServer;
+import com.arcadedb.server.ServerPlugin;
+import com.arcadedb.server.http.HttpServer;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.PathHandler;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Executes read queries through the {@link QueryResultCache} and the {@link QueryConcurrencyLimiter}, if enabled.
+ * {@value #QUERY_PATH}/{database} accepts the same request body as the ArcadeDB query endpoint ({"language",
+ * "command", "params"}) and requires the same basic authentication. {@value #METRICS_PATH} returns the hit and miss
+ * metrics of the cache on GET and flushes it on DELETE, both for any authenticated server user.
+ */
+public class QueryCachePlugin implements ServerPlugin {
+    static final String NAME = "BioDWH2QueryCache";
+    static final String QUERY_PATH = "/api/v1/biodwh2/cached-query";
+    static final String METRICS_PATH = "/api/v1/biodwh2/query-cache";
+    private static final HttpString CACHE_HEADER = new HttpString("X-BioDWH2-Cache");
+
+    private final Set<Database> observedDatabases = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+    private ArcadeDBServer server;
+    private Path checksumFilePath;
+    private volatile long checksumModifiedTime = -1;
+    private volatile String checksum = "";
+
+    @Override
+    public void configure(final ArcadeDBServer arcadeDBServer, final ContextConfiguration configuration) {
+        server = arcadeDBServer;
+        checksumFilePath = Paths.get(configuration.getValueAsString(GlobalConfiguration.SERVER_ROOT_PATH),
+                                     "checksum.txt");
+    }
+
+    @Override
+    public void startService() {
+    }
+
+    @Override
+    public void registerAPI(final HttpServer httpServer, final PathHandler routes) {
+        routes.addPrefixPath(QUERY_PATH, this::handleQuery);
+        routes.addExactPath(METRICS_PATH, this::handleMetrics);
+    }
+
+    private void handleQuery(final HttpServerExchange exchange) throws IOException {
+        if (exchange.isInIoThread()) {
+            final Executor executor = QueryExecutors.getExecutor();
+            if (executor != null)
+                exchange.dispatch(executor, this::handleQuery);
+            else
+                exchange.dispatch(this::handleQuery);
+            return;
+        }
+        if (!Methods.POST.equals(exchange.getRequestMethod())) {
+            exchange.setStatusCode(StatusCodes.METHOD_NOT_ALLOWED);
+            return;
+        }
+        final String databaseName = exchange.getRelativePath().replaceAll("^/+", "");
+        if (!BasicAuthentication.authenticate(server, exchange, databaseName))
+            return;
+        if (!server.existsDatabase(databaseName)) {
+            sendError(exchange, StatusCodes.NOT_FOUND, "Database '" + databaseName + "' does not exist");
+            return;
+        }
+        exchange.startBlocking();
+        final JSONObject request;
+        try {
+            request = new JSONObject(IOUtils.toString(exchange.getInputStream(), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            sendError(exchange, StatusCodes.BAD_REQUEST, "Invalid request body: " + e.getMessage());
+            return;
+        }
+        final String language = request.optString("language", "sql");
+        final String command = request.optString("command", null);
+        if (command == null) {
+            sendError(exchange, StatusCodes.BAD_REQUEST, "Missing query command");
+            return;
+        }
+        final JSONObject params = request.optJSONObject("params");
+        final String key = QueryResultCache.createKey(databaseName, language, command,
+                                                      params != null ? params.toString() : "", getChecksum());
+        final QueryResultCache cache = QueryResultCache.getCurrent();
+        String result = cache != null ? cache.get(key) : null;
+        if (result != null)
+            exchange.getResponseHeaders().put(CACHE_HEADER, "HIT");
+        else {
+            final Database database = server.getDatabase(databaseName);
+            final long generation = cache != null ? cache.getGeneration() : 0;
+            if (cache != null)
+                observe(database, cache);
+            try {
+                result = executeLimited(key, () -> executeQuery(database, language, command, params));
+            } catch (RuntimeException e) {
+                sendError(exchange, StatusCodes.BAD_REQUEST, e.getMessage());
+                return;
+            }
+            if (result == null) {
+                sendError(exchange, StatusCodes.SERVICE_UNAVAILABLE, "Too many concurrent queries");
+                return;
+            }
+            if (cache != null) {
+                cache.put(key, generation, result);
+                exchange.getResponseHeaders().put(CACHE_HEADER, "MISS");
+            }
+        }
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send(result, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Executes the query within the limits of the {@link QueryConcurrencyLimiter}, if any. Returns null if no permit
+     * was available in time.
+     */
+    private static String executeLimited(final String key, final Supplier<String> query) {
+        final QueryConcurrencyLimiter limiter = QueryConcurrencyLimiter.getCurrent();
+        if (limiter == null)
+            return query.get();
+        final String[] result = new String[1];
+        try {
+            return limiter.execute(key, () -> result[0] = query.get()) ? result[0] : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Registers listeners flushing the cache on every write, once per database instance, as a recreated database is
+     * a new instance.
+     */
+    private void observe(final Database database, final QueryResultCache cache) {
+        if (!observedDatabases.add(database))
+            return;
+        database.getEvents().registerListener((AfterRecordCreateListener) record -> cache.invalidate());
+        database.getEvents().registerListener((AfterRecordUpdateListener) record -> cache.invalidate());
+        database.getEvents().registerListener((AfterRecordDeleteListener) record -> cache.invalidate());
+    }
+
+    private static String executeQuery(final Database database, final String language, final String command,
+                                       final JSONObject params) {
+        final Map<String, Object> parameters = params != null ? params.toMap() : Collections.emptyMap();
+        final JSONArray result = new JSONArray();
+        try (ResultSet resultSet = database.query(language, command, parameters)) {
+            while (resultSet.hasNext())
+                result.put(resultSet.next().toJSON());
+        }
+        return new JSONObject().put("result", result).toString();
+    }
+
+    private String getChecksum() {
+        try {
+            final long modifiedTime = Files.exists(checksumFilePath) ? Files.getLastModifiedTime(checksumFilePath)
+                                                                            .toMillis() : 0;
+            if (modifiedTime != checksumModifiedTime) {
+                checksum = modifiedTime > 0 ? new String(Files.readAllBytes(checksumFilePath),
+                                                         StandardCharsets.UTF_8).trim() : "";
+                checksumModifiedTime = modifiedTime;
+            }
+        } catch (IOException ignored) {
+        }
+        return checksum;
+    }
+
+    private void handleMetrics(final HttpServerExchange exchange) {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this::handleMetrics);
+            return;
+        }
+        final boolean isDelete = Methods.DELETE.equals(exchange.getRequestMethod());
+        if (!isDelete && !Methods.GET.equals(exchange.getRequestMethod())) {
+            exchange.setStatusCode(StatusCodes.METHOD_NOT_ALLOWED);
+            return;
+        }
+        if (!BasicAuthentication.authenticate(server, exchange, null))
+            return;
+        final QueryResultCache cache = QueryResultCache.getCurrent();
+        if (cache == null) {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            return;
+        }
+        if (isDelete) {
+            cache.invalidate();
+            exchange.setStatusCode(StatusCodes.NO_CONTENT);
+            return;
+        }
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send(cache.getMetrics().toString(2), StandardCharsets.UTF_8);
+    }
+
+    private static void sendError(final HttpServerExchange exchange, final int statusCode, final String message) {
+        exchange.setStatusCode(statusCode);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send(new JSONObject().put("error", String.valueOf(message)).toString(),
+                                          StandardCharsets.UTF_8);
+    }
+}
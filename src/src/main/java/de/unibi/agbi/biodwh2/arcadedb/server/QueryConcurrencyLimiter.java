@@ -0,0 +1,79 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrently executed queries. Queries whose last execution took longer than
+ * {@value #HEAVY_QUERY_MILLIS} ms are considered heavy and additionally need one of the fewer heavy permits, so
+ * heavy traversals cannot occupy all permits and starve quick lookups. Queries are identified by their cache key.
+ */
+final class QueryConcurrencyLimiter {
+    static final long HEAVY_QUERY_MILLIS = 1000;
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 60;
+    private static final int MAX_TRACKED_QUERIES = 10000;
+
+    private static volatile QueryConcurrencyLimiter current;
+
+    private final Semaphore permits;
+    private final Semaphore heavyPermits;
+    private final Map<String, Boolean> heavyQueries = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_TRACKED_QUERIES;
+        }
+    };
+
+    QueryConcurrencyLimiter(final int maxQueries, final int maxHeavyQueries) {
+        permits = new Semaphore(maxQueries, true);
+        heavyPermits = new Semaphore(Math.min(maxHeavyQueries, maxQueries), true);
+    }
+
+    /**
+     * The limiter of the server running in this process, or null if queries are not limited.
+     */
+    static QueryConcurrencyLimiter getCurrent() {
+        return current;
+    }
+
+    static void setCurrent(final QueryConcurrencyLimiter limiter) {
+        current = limiter;
+    }
+
+    /**
+     * Runs the query once the permits are acquired. Returns false if they could not be acquired in time.
+     */
+    boolean execute(final String key, final Runnable query) throws InterruptedException {
+        final boolean heavy = isHeavy(key);
+        if (heavy && !heavyPermits.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            return false;
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                return false;
+            final long startTime = System.currentTimeMillis();
+            try {
+                query.run();
+            } finally {
+                permits.release();
+                setHeavy(key, System.currentTimeMillis() - startTime >= HEAVY_QUERY_MILLIS);
+            }
+            return true;
+        } finally {
+            if (heavy)
+                heavyPermits.release();
+        }
+    }
+
+    private synchronized boolean isHeavy(final String key) {
+        return heavyQueries.containsKey(key);
+    }
+
+    private synchronized void setHeavy(final String key, final boolean heavy) {
+        if (heavy)
+            heavyQueries.put(key, Boolean.TRUE);
+        else
+            heavyQueries.remove(key);
+    }
+}
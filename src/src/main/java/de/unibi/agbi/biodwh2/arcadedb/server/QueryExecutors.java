@@ -0,0 +1,49 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor running the query requests of the BioDWH2 plugins. On JDKs with virtual threads, every request runs in
+ * its own virtual thread, so requests waiting for a query permit do not block platform threads. Otherwise, the
+ * requests run in the Undertow worker pool.
+ */
+final class QueryExecutors {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryExecutors.class);
+
+    private static volatile ExecutorService executor;
+
+    private QueryExecutors() {
+    }
+
+    /**
+     * The executor for query requests, or null for the Undertow worker pool.
+     */
+    static ExecutorService getExecutor() {
+        return executor;
+    }
+
+    static void useVirtualThreadsIfAvailable() {
+        if (executor != null)
+            return;
+        try {
+            // Resolved reflectively, as the project targets Java 8
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Executing query requests in virtual threads");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Virtual threads are not available, executing query requests in the HTTP worker pool");
+        }
+    }
+
+    static void shutdown() {
+        final ExecutorService current = executor;
+        executor = null;
+        if (current != null)
+            current.shutdown();
+    }
+}
@@ -0,0 +1,143 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of serialized query results. Keys combine the database, the query language, the normalized
+ * query text, the parameters and the workspace checksum, so results of a rebuilt database never match. Every write to
+ * the database invalidates the whole cache, and results of queries which ran while the cache was invalidated are not
+ * stored.
+ */
+final class QueryResultCache {
+    private static volatile QueryResultCache current;
+
+    private final long maxSizeBytes;
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean empty = true;
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    QueryResultCache(final long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * The cache of the server running in this process, or null if caching is disabled.
+     */
+    static QueryResultCache getCurrent() {
+        return current;
+    }
+
+    static void setCurrent(final QueryResultCache cache) {
+        current = cache;
+    }
+
+    static String createKey(final String database, final String language, final String query,
+                            final String parameters, final String checksum) {
+        return database + '\0' + language.toLowerCase() + '\0' + normalizeQuery(query) + '\0' + parameters + '\0' +
+               checksum;
+    }
+
+    /**
+     * Collapses whitespace outside of quoted literals, so queries only differing in formatting share an entry.
+     */
+    static String normalizeQuery(final String query) {
+        final StringBuilder builder = new StringBuilder(query.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < query.length(); i++) {
+            final char c = query.charAt(i);
+            if (quote != 0) {
+                builder.append(c);
+                if (c == '\\' && i + 1 < query.length())
+                    builder.append(query.charAt(++i));
+                else if (c == quote)
+                    quote = 0;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+            } else {
+                if (pendingSpace)
+                    builder.append(' ');
+                pendingSpace = false;
+                if (c == '\'' || c == '"' || c == '`')
+                    quote = c;
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    long getGeneration() {
+        return generation.get();
+    }
+
+    synchronized String get(final String key) {
+        final String result = entries.get(key);
+        if (result != null)
+            hits++;
+        else
+            misses++;
+        return result;
+    }
+
+    /**
+     * Stores the result unless the cache was invalidated since the given generation was read.
+     */
+    synchronized void put(final String key, final long queryGeneration, final String result) {
+        final long size = estimateSize(key, result);
+        // Mark the cache as non-empty before checking the generation, so a concurrent invalidation flushes it
+        empty = false;
+        if (queryGeneration != generation.get() || size > maxSizeBytes)
+            return;
+        final String previous = entries.put(key, result);
+        if (previous != null)
+            sizeBytes -= estimateSize(key, previous);
+        sizeBytes += size;
+        final Iterator<Map.Entry<String, String>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+            final Map.Entry<String, String> eldest = iterator.next();
+            sizeBytes -= estimateSize(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static long estimateSize(final String key, final String result) {
+        return 2L * (key.length() + result.length()) + 64;
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        // Writes invalidate once per record, so skip the lock if there is nothing to flush
+        if (empty)
+            return;
+        synchronized (this) {
+            entries.clear();
+            sizeBytes = 0;
+            empty = true;
+            invalidations++;
+        }
+    }
+
+    synchronized JSONObject getMetrics() {
+        final JSONObject json = new JSONObject();
+        json.put("hits", hits);
+        json.put("misses", misses);
+        json.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        json.put("evictions", evictions);
+        json.put("invalidations", invalidations);
+        json.put("entries", entries.size());
+        json.put("sizeBytes", sizeBytes);
+        json.put("maxSizeBytes", maxSizeBytes);
+        return json;
+    }
+}
@@ -0,0 +1,34 @@
+package de.unibi.agbi.biodwh2.arcadedb.server.model;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings of the query load test. A rate of 0 sends queries as fast as the concurrent clients allow.
+ */
+public class BenchmarkSettings {
+    public Path workloadFilePath;
+    public Path outputFilePath;
+    public int concurrency = 8;
+    public double rate;
+    public int durationSeconds = 60;
+    public int warmUpSeconds = 10;
+
+    public static BenchmarkSettings fromCmdArgs(final CmdArgs commandLine) {
+        final BenchmarkSettings settings = new BenchmarkSettings();
+        settings.workloadFilePath = commandLine.workload != null ? Paths.get(commandLine.workload) : null;
+        settings.outputFilePath = commandLine.benchmarkOutput != null ? Paths.get(commandLine.benchmarkOutput) :
+                                  Paths.get(commandLine.benchmark, "benchmark-report.json");
+        settings.concurrency = Math.max(1, commandLine.benchmarkConcurrency);
+        settings.rate = Math.max(0, commandLine.benchmarkRate);
+        settings.durationSeconds = Math.max(1, commandLine.benchmarkDuration);
+        settings.warmUpSeconds = Math.max(0, commandLine.benchmarkWarmUp);
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        return "workload=" + workloadFilePath + ", concurrency=" + concurrency + ", rate=" +
+               (rate > 0 ? rate : "unlimited") + ", duration=" + durationSeconds + "s, warm-up=" + warmUpSeconds + "s";
+    }
+}
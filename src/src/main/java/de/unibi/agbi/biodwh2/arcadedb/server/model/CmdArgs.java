@@ -2,6 +2,8 @@ package de.unibi.agbi.biodwh2.arcadedb.server.model;
 
 import picocli.CommandLine;
 
+import java.util.List;
+
 @CommandLine.Command(name = "BioDWH2-ArcadeDB-Server.jar", sortOptions = false, separator = " ", footer = "Visit https://biodwh2.github.io for more documentation.")
 public class CmdArgs {
     @CommandLine.Option(names = {"-h", "--help"}, usageHelp = true, description = "print this message", order = 1)
@@ -22,4 +24,180 @@ public class CmdArgs {
             "-p", "--port"
     }, defaultValue = "2480-2489", paramLabel = "<port>", description = "Specifies the ArcadeDB server port(-range) (default 2480-2489)", order = 5)
     public String port;
+    @CommandLine.Option(names = {
+            "-b", "--bulk-import"
+    }, description = "Import nodes and edges in explicit transactions committed in batches", order = 6)
+    public boolean bulkImport;
+    @CommandLine.Option(names = {
+            "--batch-size"
+    }, defaultValue = "50000", paramLabel = "<records>", description = "Number of records per committed batch in bulk import mode (default 50000)", order = 7)
+    public int batchSize;
+    @CommandLine.Option(names = {
+            "--batch-bytes"
+    }, defaultValue = "67108864", paramLabel = "<bytes>", description = "Estimated number of bytes per committed batch in bulk import mode, 0 to disable (default 67108864)", order = 8)
+    public long batchBytes;
+    @CommandLine.Option(names = {
+            "--disable-wal"
+    }, description = "Disable the write ahead log during the initial database import", order = 9)
+    public boolean disableWAL;
+    @CommandLine.Option(names = {
+            "-t", "--threads"
+    }, defaultValue = "1", paramLabel = "<count>", description = "Number of threads used to import nodes and edges in parallel (default 1)", order = 10)
+    public int threads;
+    @CommandLine.Option(names = {
+            "--edge-sort-buffer"
+    }, defaultValue = "1000000", paramLabel = "<edges>", description = "Number of edges buffered and sorted by source vertex before insertion (default 1000000)", order = 11)
+    public int edgeSortBufferSize;
+    @CommandLine.Option(names = {
+            "-i", "--incremental"
+    }, description = "Only update the labels which changed since the last import instead of recreating the database", order = 12)
+    public boolean incremental;
+    @CommandLine.Option(names = {
+            "--index-threads"
+    }, defaultValue = "1", paramLabel = "<count>", description = "Number of threads filling array property indices, schema changes and other indices are built one at a time (default 1)", order = 13)
+    public int indexThreads;
+    @CommandLine.Option(names = {
+            "--index-memory"
+    }, defaultValue = "0", paramLabel = "<megabytes>", description = "Estimated memory limit for concurrent index builds, 0 for no limit (default 0)", order = 14)
+    public int indexMemoryMegabytes;
+    @CommandLine.Option(names = {
+            "--index-page-size"
+    }, defaultValue = "0", paramLabel = "<bytes>", description = "Page size of the LSM-tree indices, 0 for the ArcadeDB default (default 0)", order = 15)
+    public int indexPageSize;
+    @CommandLine.Option(names = {
+            "--profile"
+    }, paramLabel = "<name>", description = "Storage profile: default, bulk-load, low-memory or read-heavy (default default)", order = 16)
+    public String profile;
+    @CommandLine.Option(names = {
+            "--config"
+    }, paramLabel = "<file>", description = "Properties file with storage settings, overridden by explicit options", order = 17)
+    public String configFile;
+    @CommandLine.Option(names = {
+            "--page-size"
+    }, paramLabel = "<bytes>", description = "Page size of new buckets (default 1048576)", order = 18)
+    public Integer pageSize;
+    @CommandLine.Option(names = {
+            "--vertex-buckets"
+    }, paramLabel = "<count>", description = "Number of buckets per vertex type, 0 for the ArcadeDB default", order = 19)
+    public Integer vertexBuckets;
+    @CommandLine.Option(names = {
+            "--edge-buckets"
+    }, paramLabel = "<count>", description = "Number of buckets per edge type, 0 for the ArcadeDB default", order = 20)
+    public Integer edgeBuckets;
+    @CommandLine.Option(names = {
+            "--read-cache"
+    }, paramLabel = "<megabytes>", description = "Size of the page read cache, 0 for the ArcadeDB default", order = 21)
+    public Integer readCacheMegabytes;
+    @CommandLine.Option(names = {
+            "--wal-flush"
+    }, paramLabel = "<mode>", description = "WAL flush on commit: 0 no flush, 1 without metadata, 2 full (default 0)", order = 22)
+    public Integer walFlush;
+    @CommandLine.Option(names = {
+            "--async-workers"
+    }, paramLabel = "<count>", description = "Number of asynchronous worker threads, 0 for the ArcadeDB default", order = 23)
+    public Integer asyncWorkers;
+    @CommandLine.Option(names = {
+            "-r", "--resume"
+    }, description = "Continue an interrupted database import from its last checkpoint", order = 24)
+    public boolean resume;
+    @CommandLine.Option(names = {
+            "--pipeline-capacity"
+    }, defaultValue = "65536", paramLabel = "<records>", description = "Number of records read ahead of the single-threaded writer, 0 to disable (default 65536)", order = 25)
+    public int pipelineCapacity;
+    @CommandLine.Option(names = {
+            "--warm-up"
+    }, description = "Preload index and bucket pages into the read cache in the background after the server started", order = 26)
+    public boolean warmUp;
+    @CommandLine.Option(names = {
+            "--warm-up-types"
+    }, split = ",", paramLabel = "<labels>", description = "Comma separated types whose buckets are preloaded, instead of the most used ones of the last run", order = 27)
+    public List<String> warmUpTypes;
+    @CommandLine.Option(names = {
+            "--warm-up-memory"
+    }, defaultValue = "0", paramLabel = "<megabytes>", description = "Memory budget of the warm-up, 0 for half of the read cache (default 0)", order = 28)
+    public int warmUpMemoryMegabytes;
+    @CommandLine.Option(names = {
+            "--warm-up-threads"
+    }, defaultValue = "4", paramLabel = "<count>", description = "Number of threads preloading pages in parallel (default 4)", order = 29)
+    public int warmUpThreads;
+    @CommandLine.Option(names = {
+            "--query-cache"
+    }, defaultValue = "64", paramLabel = "<megabytes>", description = "Size of the query result cache, 0 to disable (default 64)", order = 30)
+    public int queryCacheMegabytes;
+    @CommandLine.Option(names = {
+            "--serve-readonly"
+    }, arity = "1", paramLabel = "<workspacePath>", description = "Serve the workspace database read-only, tuned for many concurrent queries", order = 31)
+    public String serveReadOnly;
+    @CommandLine.Option(names = {
+            "--http-io-threads"
+    }, defaultValue = "0", paramLabel = "<count>", description = "Number of HTTP IO threads in read-only mode, 0 for the number of processors (default 0)", order = 32)
+    public int httpIoThreads;
+    @CommandLine.Option(names = {
+            "--max-queries"
+    }, defaultValue = "0", paramLabel = "<count>", description = "Maximum number of concurrent queries in read-only mode, 0 for twice the number of processors (default 0)", order = 33)
+    public int maxQueries;
+    @CommandLine.Option(names = {
+            "--max-heavy-queries"
+    }, defaultValue = "0", paramLabel = "<count>", description = "Maximum number of concurrent heavy queries in read-only mode, 0 for half the number of processors (default 0)", order = 34)
+    public int maxHeavyQueries;
+    @CommandLine.Option(names = {
+            "--export-snapshot"
+    }, arity = "1", paramLabel = "<workspacePath>", description = "Pack the finished ArcadeDB database of the workspace into a snapshot", order = 35)
+    public String exportSnapshot;
+    @CommandLine.Option(names = {
+            "--import-snapshot"
+    }, arity = "1", paramLabel = "<workspacePath>", description = "Restore the ArcadeDB database of the workspace from a matching snapshot", order = 36)
+    public String importSnapshot;
+    @CommandLine.Option(names = {
+            "--snapshot"
+    }, paramLabel = "<file>", description = "Snapshot file, also restored by --start and --serve-readonly if the database is missing or out-of-date (default <workspacePath>/arcadedb-snapshot.zip for the snapshot commands)", order = 37)
+    public String snapshot;
+    @CommandLine.Option(names = {
+            "--snapshot-threads"
+    }, defaultValue = "4", paramLabel = "<count>", description = "Number of threads extracting a snapshot in parallel (default 4)", order = 38)
+    public int snapshotThreads;
+    @CommandLine.Option(names = {
+            "--snapshot-compression"
+    }, defaultValue = "1", paramLabel = "<level>", description = "Compression level of exported snapshots from 0 (none) to 9 (default 1)", order = 39)
+    public int snapshotCompression;
+    @CommandLine.Option(names = {
+            "--benchmark"
+    }, arity = "1", paramLabel = "<workspacePath>", description = "Start an ArcadeDB server for the workspace and replay a query workload against it", order = 40)
+    public String benchmark;
+    @CommandLine.Option(names = {
+            "--workload"
+    }, paramLabel = "<file>", description = "JSON file with the queries replayed by --benchmark", order = 41)
+    public String workload;
+    @CommandLine.Option(names = {
+            "--benchmark-concurrency"
+    }, defaultValue = "8", paramLabel = "<count>", description = "Number of concurrent benchmark clients (default 8)", order = 42)
+    public int benchmarkConcurrency;
+    @CommandLine.Option(names = {
+            "--benchmark-rate"
+    }, defaultValue = "0", paramLabel = "<queries/s>", description = "Target rate of benchmark queries per second, 0 for no limit (default 0)", order = 43)
+    public double benchmarkRate;
+    @CommandLine.Option(names = {
+            "--benchmark-duration"
+    }, defaultValue = "60", paramLabel = "<seconds>", description = "Duration of the measured benchmark phase (default 60)", order = 44)
+    public int benchmarkDuration;
+    @CommandLine.Option(names = {
+            "--benchmark-warm-up"
+    }, defaultValue = "10", paramLabel = "<seconds>", description = "Duration of the unmeasured benchmark warm-up phase (default 10)", order = 45)
+    public int benchmarkWarmUp;
+    @CommandLine.Option(names = {
+            "--benchmark-output"
+    }, paramLabel = "<file>", description = "JSON file of the benchmark report (default <workspacePath>/benchmark-report.json)", order = 46)
+    public String benchmarkOutput;
+    @CommandLine.Option(names = {
+            "--light-edges"
+    }, description = "Store edges of labels without properties as light edges without an edge record", order = 47)
+    public boolean lightEdges;
+    @CommandLine.Option(names = {
+            "--presize-edge-segments"
+    }, description = "Count the out-degree of all vertices before the edge import and allocate larger edge segments for hub vertices", order = 48)
+    public boolean presizeEdgeSegments;
+    @CommandLine.Option(names = {
+            "--trust-file-metadata"
+    }, description = "Reuse the cached workspace checksum while size and modification time of the mapped graph are unchanged, instead of reading the whole file", order = 49)
+    public boolean trustFileMetadata;
 }
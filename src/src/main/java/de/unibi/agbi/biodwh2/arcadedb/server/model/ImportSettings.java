@@ -0,0 +1,43 @@
+package de.unibi.agbi.biodwh2.arcadedb.server.model;
+
+public class ImportSettings {
+    public boolean bulkImport;
+    public int batchSize = 50000;
+    public long batchBytes = 64L * 1024 * 1024;
+    public boolean disableWAL;
+    public int threads = 1;
+    public int edgeSortBufferSize = 1000000;
+    public int indexThreads = 1;
+    public int indexMemoryMegabytes;
+    public int indexPageSize;
+    public int pipelineCapacity = 65536;
+    public boolean lightEdges;
+    public boolean presizeEdgeSegments;
+
+    public static ImportSettings fromCmdArgs(final CmdArgs commandLine, final StorageSettings storageSettings) {
+        final ImportSettings settings = new ImportSettings();
+        final boolean bulkLoad = storageSettings.profile == StorageProfile.BULK_LOAD;
+        settings.bulkImport = commandLine.bulkImport || bulkLoad;
+        settings.batchSize = Math.max(1, commandLine.batchSize);
+        settings.batchBytes = Math.max(0, commandLine.batchBytes);
+        settings.disableWAL = commandLine.disableWAL || bulkLoad;
+        settings.threads = Math.max(1, commandLine.threads);
+        settings.edgeSortBufferSize = Math.max(1, commandLine.edgeSortBufferSize);
+        settings.indexThreads = Math.max(1, commandLine.indexThreads);
+        settings.indexMemoryMegabytes = Math.max(0, commandLine.indexMemoryMegabytes);
+        settings.indexPageSize = Math.max(0, commandLine.indexPageSize);
+        settings.pipelineCapacity = Math.max(0, commandLine.pipelineCapacity);
+        settings.lightEdges = commandLine.lightEdges;
+        settings.presizeEdgeSegments = commandLine.presizeEdgeSegments;
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        return "bulk-import=" + bulkImport + ", batch-size=" + batchSize + ", batch-bytes=" + batchBytes +
+               ", disable-wal=" + disableWAL + ", threads=" + threads + ", edge-sort-buffer=" + edgeSortBufferSize +
+               ", index-threads=" + indexThreads + ", index-memory=" + indexMemoryMegabytes + ", index-page-size=" +
+               indexPageSize + ", pipeline-capacity=" + pipelineCapacity + ", light-edges=" + lightEdges +
+               ", presize-edge-segments=" + presizeEdgeSegments;
+    }
+}
@@ -0,0 +1,35 @@
+package de.unibi.agbi.biodwh2.arcadedb.server.model;
+
+/**
+ * Settings of the HTTP server and its plugins. In read-only mode the database is opened read-only and the query
+ * endpoint of the BioDWH2 plugin limits the number of concurrent queries.
+ */
+public class ServerSettings {
+    /**
+     * Size of the query result cache, 0 to disable it.
+     */
+    public int queryCacheMegabytes = 64;
+    public boolean readOnly;
+    public int httpIoThreads;
+    public int maxQueries;
+    public int maxHeavyQueries;
+
+    public static ServerSettings fromCmdArgs(final CmdArgs commandLine) {
+        final ServerSettings settings = new ServerSettings();
+        settings.queryCacheMegabytes = Math.max(0, commandLine.queryCacheMegabytes);
+        settings.readOnly = commandLine.serveReadOnly != null;
+        final int processors = Runtime.getRuntime().availableProcessors();
+        settings.httpIoThreads = commandLine.httpIoThreads > 0 ? commandLine.httpIoThreads : processors;
+        settings.maxQueries = commandLine.maxQueries > 0 ? commandLine.maxQueries : 2 * processors;
+        settings.maxHeavyQueries = commandLine.maxHeavyQueries > 0 ? commandLine.maxHeavyQueries :
+                                   Math.max(1, processors / 2);
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        final String result = "query-cache=" + queryCacheMegabytes + ", read-only=" + readOnly;
+        return readOnly ? result + ", http-io-threads=" + httpIoThreads + ", max-queries=" + maxQueries +
+                          ", max-heavy-queries=" + maxHeavyQueries : result;
+    }
+}
@@ -0,0 +1,42 @@
+package de.unibi.agbi.biodwh2.arcadedb.server.model;
+
+/**
+ * Presets for the storage layout and engine settings. Explicit settings from a configuration file or the command
+ * line override the values of the profile.
+ */
+public enum StorageProfile {
+    /**
+     * 1 MB bucket pages and the ArcadeDB defaults for everything else.
+     */
+    DEFAULT("default"),
+    /**
+     * Batched imports without WAL, one bucket per processor for every type and asynchronous workers for all
+     * processors.
+     */
+    BULK_LOAD("bulk-load"),
+    /**
+     * 64 KB pages, a single bucket per type, a 256 MB read cache and a single asynchronous worker.
+     */
+    LOW_MEMORY("low-memory"),
+    /**
+     * A read cache of 60% of the maximum heap and WAL flushes on commit for a database mainly serving queries.
+     */
+    READ_HEAVY("read-heavy");
+
+    private final String name;
+
+    StorageProfile(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static StorageProfile fromName(final String name) {
+        for (final StorageProfile profile : values())
+            if (profile.name.equalsIgnoreCase(name.trim()))
+                return profile;
+        throw new IllegalArgumentException("Unknown profile '" + name + "'");
+    }
+}
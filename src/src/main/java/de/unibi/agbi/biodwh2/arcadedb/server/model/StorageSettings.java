@@ -0,0 +1,95 @@
+package de.unibi.agbi.biodwh2.arcadedb.server.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Storage layout and engine settings of the ArcadeDB server. Values of 0 keep the ArcadeDB default. The settings are
+ * resolved from the profile, then the optional configuration file and finally the explicit command line options.
+ */
+public class StorageSettings {
+    public StorageProfile profile = StorageProfile.DEFAULT;
+    public int pageSize = 1048576;
+    public int vertexBuckets;
+    public int edgeBuckets;
+    public int readCacheMegabytes;
+    /**
+     * WAL flush mode on commit: 0 no flush, 1 flush without metadata, 2 full flush.
+     */
+    public int walFlush;
+    public int asyncWorkers;
+
+    public static StorageSettings fromCmdArgs(final CmdArgs commandLine) throws IOException {
+        final Properties config = new Properties();
+        if (commandLine.configFile != null)
+            try (InputStream stream = Files.newInputStream(Paths.get(commandLine.configFile))) {
+                config.load(stream);
+            }
+        final String profileName = commandLine.profile != null ? commandLine.profile : config.getProperty("profile");
+        final StorageSettings settings = forProfile(
+                profileName != null ? StorageProfile.fromName(profileName) : StorageProfile.DEFAULT);
+        settings.pageSize = getValue(commandLine.pageSize, config, "page-size", settings.pageSize);
+        settings.vertexBuckets = getValue(commandLine.vertexBuckets, config, "vertex-buckets",
+                                          settings.vertexBuckets);
+        settings.edgeBuckets = getValue(commandLine.edgeBuckets, config, "edge-buckets", settings.edgeBuckets);
+        settings.readCacheMegabytes = getValue(commandLine.readCacheMegabytes, config, "read-cache",
+                                               settings.readCacheMegabytes);
+        settings.walFlush = Math.min(2, getValue(commandLine.walFlush, config, "wal-flush", settings.walFlush));
+        settings.asyncWorkers = getValue(commandLine.asyncWorkers, config, "async-workers", settings.asyncWorkers);
+        return settings;
+    }
+
+    private static int getValue(final Integer option, final Properties config, final String key,
+                                final int fallback) {
+        if (option != null)
+            return Math.max(0, option);
+        final String value = config.getProperty(key);
+        if (value == null)
+            return fallback;
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' for '" + key + "' in config file", e);
+        }
+    }
+
+    public static StorageSettings forProfile(final StorageProfile profile) {
+        final StorageSettings settings = new StorageSettings();
+        settings.profile = profile;
+        final int processors = Runtime.getRuntime().availableProcessors();
+        switch (profile) {
+            case BULK_LOAD:
+                settings.vertexBuckets = processors;
+                settings.edgeBuckets = processors;
+                settings.asyncWorkers = processors;
+                break;
+            case LOW_MEMORY:
+                settings.pageSize = 65536;
+                settings.vertexBuckets = 1;
+                settings.edgeBuckets = 1;
+                settings.readCacheMegabytes = 256;
+                settings.asyncWorkers = 1;
+                break;
+            case READ_HEAVY:
+                settings.readCacheMegabytes = (int) (Runtime.getRuntime().maxMemory() * 0.6 / 1048576);
+                settings.walFlush = 1;
+                break;
+        }
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        return "profile=" + profile.getName() + ", page-size=" + pageSize + ", vertex-buckets=" + describe(
+                vertexBuckets) + ", edge-buckets=" + describe(edgeBuckets) + ", read-cache=" + (
+                       readCacheMegabytes > 0 ? readCacheMegabytes + " MB" : "default") + ", wal-flush=" + walFlush +
+               ", async-workers=" + describe(asyncWorkers);
+    }
+
+    private static String describe(final int value) {
+        return value > 0 ? String.valueOf(value) : "default";
+    }
+}
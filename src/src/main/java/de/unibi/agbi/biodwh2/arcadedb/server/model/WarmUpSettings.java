@@ -0,0 +1,36 @@
+package de.unibi.agbi.biodwh2.arcadedb.server.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the page cache warm-up after the server started. Without explicit types, the buckets are chosen from
+ * the page cache statistics stored at the previous shutdown.
+ */
+public class WarmUpSettings {
+    public boolean enabled;
+    public List<String> types = new ArrayList<>();
+    /**
+     * Memory budget of the warm-up, 0 for half of the read cache.
+     */
+    public int memoryMegabytes;
+    public int threads = 4;
+
+    public static WarmUpSettings fromCmdArgs(final CmdArgs commandLine) {
+        final WarmUpSettings settings = new WarmUpSettings();
+        settings.enabled = commandLine.warmUp;
+        if (commandLine.warmUpTypes != null)
+            for (final String type : commandLine.warmUpTypes)
+                if (!type.trim().isEmpty())
+                    settings.types.add(type.trim());
+        settings.memoryMegabytes = Math.max(0, commandLine.warmUpMemoryMegabytes);
+        settings.threads = Math.max(1, commandLine.warmUpThreads);
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        return "types=" + (types.isEmpty() ? "<statistics>" : String.join(",", types)) + ", memory=" +
+               memoryMegabytes + ", threads=" + threads;
+    }
+}
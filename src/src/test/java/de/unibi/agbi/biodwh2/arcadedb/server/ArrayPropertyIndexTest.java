@@ -0,0 +1,76 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.Database;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.index.lsm.LSMTreeIndexAbstract;
+import com.arcadedb.query.sql.executor.Result;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.server.ArcadeDBServer;
+import de.unibi.agbi.biodwh2.arcadedb.server.model.ImportSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayPropertyIndexTest {
+    private static ArcadeDBServer startServer(final Path rootPath) {
+        final ContextConfiguration config = new ContextConfiguration();
+        config.setValue(GlobalConfiguration.HA_ENABLED, false);
+        config.setValue(GlobalConfiguration.SERVER_ROOT_PATH, rootPath.toString());
+        config.setValue(GlobalConfiguration.SERVER_ROOT_PASSWORD, "biodwh2-arcadedb");
+        config.setValue(GlobalConfiguration.SERVER_HTTP_INCOMING_PORT, "2490-2499");
+        config.setValue(GlobalConfiguration.SERVER_PLUGINS,
+                        ArrayIndexLookupPlugin.NAME + ":" + ArrayIndexLookupPlugin.class.getName());
+        final ArcadeDBServer server = new ArcadeDBServer(config);
+        server.start();
+        return server;
+    }
+
+    private static List<String> lookupNames(final Database db, final String synonym) {
+        final List<String> names = new ArrayList<>();
+        try (ResultSet resultSet = db.query("sql", "SELECT expand(arrayIndexLookup('Gene', 'synonyms', ?))",
+                                            synonym)) {
+            while (resultSet.hasNext()) {
+                final Result result = resultSet.next();
+                names.add(result.getProperty("name"));
+            }
+        }
+        return names;
+    }
+
+    @Test
+    void lookupFunctionIsAvailableToQueriesOfTheServer(@TempDir final Path rootPath) {
+        ArcadeDBServer server = startServer(rootPath);
+        try {
+            final DatabaseInternal db = server.createDatabase(ArcadeDBService.DATABASE_NAME);
+            db.getSchema().createVertexType("Gene");
+            db.transaction(() -> {
+                db.newVertex("Gene").set("name", "TP53").set("synonyms", new String[]{"p53", "LFS1"}).save();
+                db.newVertex("Gene").set("name", "BRCA1").set("synonyms", new String[]{"RNF53"}).save();
+            });
+            ArrayPropertyIndex.build(db, new ImportSettings(), "Gene", "synonyms",
+                                     LSMTreeIndexAbstract.DEF_PAGE_SIZE, new Object());
+            ArrayPropertyIndex.registerFunction(db);
+            assertEquals(Collections.singletonList("TP53"),
+                         lookupNames(server.getDatabase(ArcadeDBService.DATABASE_NAME), "p53"));
+        } finally {
+            server.stop();
+        }
+        server = startServer(rootPath);
+        try {
+            final Database db = server.getDatabase(ArcadeDBService.DATABASE_NAME);
+            assertEquals(Collections.singletonList("TP53"), lookupNames(db, "p53"));
+            assertEquals(Collections.singletonList("BRCA1"), lookupNames(db, "RNF53"));
+            assertEquals(Collections.emptyList(), lookupNames(db, "BRCA2"));
+        } finally {
+            server.stop();
+        }
+    }
+}
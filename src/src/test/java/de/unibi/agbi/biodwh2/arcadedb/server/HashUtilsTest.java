@@ -0,0 +1,78 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashUtilsTest {
+    private static final long PRIME32 = 2654435761L;
+    private static final long PRIME64 = 0x9E3779B185EBCA8DL;
+
+    /**
+     * Sanity buffer of the xxHash reference test suite the published test vectors are computed from.
+     */
+    private static byte[] createSanityBuffer(final int length) {
+        final byte[] buffer = new byte[length];
+        long byteGen = PRIME32;
+        for (int i = 0; i < length; i++) {
+            buffer[i] = (byte) (byteGen >>> 56);
+            byteGen *= PRIME64;
+        }
+        return buffer;
+    }
+
+    private static long xxHash64(final int length, final long seed) {
+        return HashUtils.xxHash64(ByteBuffer.wrap(createSanityBuffer(length)), seed);
+    }
+
+    @Test
+    void xxHash64MatchesTestVectorsWithoutSeed() {
+        assertEquals(0xEF46DB3751D8E999L, xxHash64(0, 0));
+        assertEquals(0xE934A84ADB052768L, xxHash64(1, 0));
+        assertEquals(0x9136A0DCA57457EEL, xxHash64(4, 0));
+        assertEquals(0x8282DCC4994E35C8L, xxHash64(14, 0));
+        assertEquals(0xB641AE8CB691C174L, xxHash64(222, 0));
+        assertEquals(0xA82418DDEC0EA581L, xxHash64(2367, 0));
+    }
+
+    @Test
+    void xxHash64MatchesTestVectorsWithSeed() {
+        assertEquals(0xAC75FDA2929B17EFL, xxHash64(0, PRIME32));
+        assertEquals(0x5014607643A9B4C3L, xxHash64(1, PRIME32));
+        assertEquals(0xCAAB286BD8E9FDB5L, xxHash64(4, PRIME32));
+        assertEquals(0xC3BD6BF63DEB6DF0L, xxHash64(14, PRIME32));
+        assertEquals(0x20CB8AB7AE10C14AL, xxHash64(222, PRIME32));
+        assertEquals(0xA36A93C18052673AL, xxHash64(2367, PRIME32));
+    }
+
+    @Test
+    void xxHash64HashesRemainingBytesOfBuffer() {
+        final ByteBuffer buffer = ByteBuffer.allocate(232);
+        buffer.position(10);
+        buffer.put(createSanityBuffer(222));
+        buffer.position(10);
+        assertEquals(0xB641AE8CB691C174L, HashUtils.xxHash64(buffer, 0));
+    }
+
+    @Test
+    void contentHashReusesCachedChunkHashesOnlyForUnchangedMetadata(@TempDir final Path directory)
+            throws IOException {
+        final Path filePath = directory.resolve("mapped.db");
+        final Path cacheFilePath = directory.resolve("checksum-chunks.txt");
+        Files.write(filePath, createSanityBuffer(2367));
+        final String hash = HashUtils.getContentHashFromFile(filePath.toString(), null);
+        assertEquals(hash, HashUtils.getContentHashFromFile(filePath.toString(), cacheFilePath));
+        assertTrue(Files.exists(cacheFilePath));
+        assertEquals(hash, HashUtils.getContentHashFromFile(filePath.toString(), cacheFilePath));
+        Files.write(filePath, createSanityBuffer(2368));
+        final String changedHash = HashUtils.getContentHashFromFile(filePath.toString(), null);
+        assertNotEquals(hash, changedHash);
+        assertEquals(changedHash, HashUtils.getContentHashFromFile(filePath.toString(), cacheFilePath));
+    }
+}
@@ -0,0 +1,76 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportPipelineTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void writesAllRecordsInOrder() {
+        final List<Integer> source = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+        final List<Integer> written = new ArrayList<>();
+        assertTimeoutPreemptively(TIMEOUT, () -> new ImportPipeline<Integer, Integer>("test", 4096).run(
+                source, value -> value * 2, written::add));
+        assertEquals(source.stream().map(value -> value * 2).collect(Collectors.toList()), written);
+    }
+
+    @Test
+    void rethrowsErrorOfSource() {
+        final Iterable<Integer> source = () -> new Iterator<Integer>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == 5000)
+                    throw new OutOfMemoryError("source");
+                return next++;
+            }
+        };
+        final OutOfMemoryError error = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(
+                OutOfMemoryError.class,
+                () -> new ImportPipeline<Integer, Integer>("test", 4096).run(source, value -> value, value -> {
+                })));
+        assertEquals("source", error.getMessage());
+    }
+
+    @Test
+    void rethrowsErrorOfConverter() {
+        final List<Integer> source = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+        final StackOverflowError error = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(
+                StackOverflowError.class,
+                () -> new ImportPipeline<Integer, Integer>("test", 4096).run(source, value -> {
+                    if (value == 3000)
+                        throw new StackOverflowError("converter");
+                    return value;
+                }, value -> {
+                })));
+        assertEquals("converter", error.getMessage());
+    }
+
+    @Test
+    void rethrowsExceptionOfConverter() {
+        final List<Integer> source = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(
+                IllegalArgumentException.class,
+                () -> new ImportPipeline<Integer, Integer>("test", 4096).run(source, value -> {
+                    if (value == 3000)
+                        throw new IllegalArgumentException("converter");
+                    return value;
+                }, value -> {
+                })));
+    }
+}
@@ -0,0 +1,150 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import com.arcadedb.database.RID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeIdRIDMapTest {
+    private static final int NODE_COUNT = 10000;
+
+    private static long nodeId(final int index) {
+        // Spread the ids including negative ones, so the probe sequences collide and wrap around
+        return (index - NODE_COUNT / 2) * 7919L;
+    }
+
+    private static RID rid(final int index) {
+        return new RID(null, index % 8, index * 3L);
+    }
+
+    private static NodeIdRIDMap createFilledMap(final long expectedSize) {
+        final NodeIdRIDMap map = new NodeIdRIDMap(null, expectedSize);
+        for (int i = 0; i < NODE_COUNT; i++)
+            map.put(nodeId(i), rid(i));
+        return map;
+    }
+
+    private static void assertContainsAll(final NodeIdRIDMap map) {
+        assertEquals(NODE_COUNT, map.size());
+        for (int i = 0; i < NODE_COUNT; i++)
+            assertEquals(rid(i), map.get(nodeId(i)));
+    }
+
+    @Test
+    void getsAllEntriesAcrossResizes() {
+        final NodeIdRIDMap map = new NodeIdRIDMap(null, 16);
+        final int initialCapacity = map.getCapacity();
+        for (int i = 0; i < NODE_COUNT; i++)
+            map.put(nodeId(i), rid(i));
+        assertTrue(map.getCapacity() > initialCapacity);
+        assertTrue(map.size() <= map.getCapacity() * 0.6);
+        assertContainsAll(map);
+    }
+
+    @Test
+    void doesNotResizePresizedMap() {
+        final NodeIdRIDMap map = new NodeIdRIDMap(null, NODE_COUNT);
+        final int initialCapacity = map.getCapacity();
+        for (int i = 0; i < NODE_COUNT; i++)
+            map.put(nodeId(i), rid(i));
+        assertEquals(initialCapacity, map.getCapacity());
+        assertContainsAll(map);
+    }
+
+    @Test
+    void returnsNothingForMissingKeys() {
+        final NodeIdRIDMap map = createFilledMap(16);
+        assertNull(map.get(nodeId(NODE_COUNT)));
+        assertNull(map.get(1));
+        assertEquals(-1, map.getPackedRID(1));
+        assertEquals(-1, NodeIdRIDMap.getBucketId(map.getPackedRID(1)));
+        assertNull(new NodeIdRIDMap(null, 0).get(0));
+    }
+
+    @Test
+    void replacesValueOfExistingKey() {
+        final NodeIdRIDMap map = createFilledMap(16);
+        map.put(nodeId(42), new RID(null, 7, 123456789L));
+        assertEquals(NODE_COUNT, map.size());
+        assertEquals(new RID(null, 7, 123456789L), map.get(nodeId(42)));
+    }
+
+    @Test
+    void packsLargestBucketIdAndPosition() {
+        final NodeIdRIDMap map = new NodeIdRIDMap(null, 16);
+        final RID rid = new RID(null, Short.MAX_VALUE, (1L << 48) - 1);
+        map.put(1, rid);
+        assertEquals(rid, map.get(1));
+        assertEquals(Short.MAX_VALUE, NodeIdRIDMap.getBucketId(map.getPackedRID(1)));
+    }
+
+    @Test
+    void rejectsUnpackableEntries() {
+        final NodeIdRIDMap map = new NodeIdRIDMap(null, 16);
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, new RID(null, Short.MAX_VALUE + 1, 0)));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, new RID(null, 0, 1L << 48)));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, new RID(null, -1, 0)));
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, new RID(null, 0, 0)));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void keepsRemainingEntriesFindableAfterRemove() {
+        final NodeIdRIDMap map = createFilledMap(16);
+        for (int i = 0; i < NODE_COUNT; i += 2)
+            map.remove(nodeId(i));
+        map.remove(nodeId(NODE_COUNT));
+        assertEquals(NODE_COUNT / 2, map.size());
+        for (int i = 0; i < NODE_COUNT; i++)
+            assertEquals(i % 2 == 0 ? null : rid(i), map.get(nodeId(i)));
+    }
+
+    @Test
+    void savesAndLoadsAllEntries(@TempDir final Path directory) throws IOException {
+        final Path filePath = directory.resolve("node-id-mapping.bin");
+        createFilledMap(16).save(filePath);
+        assertContainsAll(NodeIdRIDMap.load(null, filePath));
+    }
+
+    @Test
+    void replaysAppendedEntriesOfBuckets(@TempDir final Path directory) throws IOException {
+        final Path filePath = directory.resolve("node-id-mapping.log");
+        final NodeIdRIDMap map = createFilledMap(16);
+        final Set<Integer> evenBuckets = new HashSet<>();
+        for (int bucketId = 0; bucketId < 8; bucketId += 2)
+            evenBuckets.add(bucketId);
+        final Set<Integer> oddBuckets = new HashSet<>();
+        for (int bucketId = 1; bucketId < 8; bucketId += 2)
+            oddBuckets.add(bucketId);
+        try (DataOutputStream stream = new DataOutputStream(Files.newOutputStream(filePath))) {
+            assertEquals(NODE_COUNT / 2, map.appendEntries(stream, evenBuckets));
+            assertEquals(NODE_COUNT / 2, map.appendEntries(stream, oddBuckets));
+            // A later entry of the same node replaces the earlier one
+            map.put(nodeId(0), new RID(null, 2, 42));
+            assertEquals(NODE_COUNT / 8 + 1, map.appendEntries(stream, Collections.singleton(2)));
+        }
+        // An incomplete trailing pair of an interrupted append is ignored
+        Files.write(filePath, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9}, StandardOpenOption.APPEND);
+        final NodeIdRIDMap loaded = NodeIdRIDMap.loadEntries(null, filePath, NODE_COUNT);
+        assertEquals(NODE_COUNT, loaded.size());
+        assertEquals(new RID(null, 2, 42), loaded.get(nodeId(0)));
+        for (int i = 1; i < NODE_COUNT; i++)
+            assertEquals(rid(i), loaded.get(nodeId(i)));
+    }
+
+    @Test
+    void replaysNothingWithoutLog(@TempDir final Path directory) throws IOException {
+        final NodeIdRIDMap loaded = NodeIdRIDMap.loadEntries(null, directory.resolve("missing.log"), NODE_COUNT);
+        assertEquals(0, loaded.size());
+    }
+}
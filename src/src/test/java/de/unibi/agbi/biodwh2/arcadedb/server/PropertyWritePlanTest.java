@@ -0,0 +1,33 @@
+package de.unibi.agbi.biodwh2.arcadedb.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertyWritePlanTest {
+    @Test
+    void convertsCollectionToArrayOfElementType() {
+        final Object result = PropertyWritePlan.convertCollectionToArray(Arrays.asList(null, 1, 2));
+        assertArrayEquals(new Integer[]{null, 1, 2}, (Integer[]) result);
+    }
+
+    @Test
+    void convertsCollectionOfUnsupportedTypeToStrings() {
+        final Object result = PropertyWritePlan.convertCollectionToArray(Arrays.asList('a', null));
+        assertArrayEquals(new String[]{"a", null}, (String[]) result);
+    }
+
+    @Test
+    void convertsEmptyCollectionToStringArray() {
+        final Object result = PropertyWritePlan.convertCollectionToArray(Collections.emptyList());
+        assertArrayEquals(new String[0], (String[]) result);
+    }
+
+    @Test
+    void rejectsCollectionWithMixedElementTypes() {
+        assertThrows(ClassCastException.class, () -> PropertyWritePlan.convertCollectionToArray(Arrays.asList(1, "a")));
+    }
+}